@@ -0,0 +1,67 @@
+package com.smarttracker.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the login response the way the application's ObjectMapper is
+ * configured in application.yml (NON_NULL, ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+    
+    private ObjectMapper objectMapper;
+    private ApiResponseDTO<LoginResponseDTO> response;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        
+        LoginResponseDTO login = LoginResponseDTO.builder()
+                .accessToken("eyJhbGciOiJIUzI1NiJ9." + "a".repeat(220) + ".signature-signature-signature")
+                .refreshToken("eyJhbGciOiJIUzI1NiJ9." + "b".repeat(180) + ".signature-signature-signature")
+                .tokenType("Bearer")
+                .expiresIn(86_400_000L)
+                .user(UserResponseDTO.builder()
+                        .id(42L)
+                        .username("jdoe")
+                        .email("jdoe@example.com")
+                        .firstName("John")
+                        .lastName("Doe")
+                        .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                        .lastLogin(LocalDateTime.of(2024, 6, 1, 8, 30))
+                        .build())
+                .build();
+        
+        response = ApiResponseDTO.success("Login successful", login);
+    }
+    
+    @Benchmark
+    public byte[] serializeLoginResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
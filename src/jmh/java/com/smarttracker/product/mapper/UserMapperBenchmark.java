@@ -0,0 +1,48 @@
+package com.smarttracker.product.mapper;
+
+import com.smarttracker.product.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+    
+    private UserMapper userMapper;
+    private User user;
+    
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapper();
+        user = User.builder()
+                .id(42L)
+                .username("jdoe")
+                .email("jdoe@example.com")
+                .password("{bcrypt}$2a$12$abcdefghijklmnopqrstuv")
+                .firstName("John")
+                .lastName("Doe")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .lastLogin(LocalDateTime.of(2024, 6, 1, 8, 30))
+                .build();
+    }
+    
+    @Benchmark
+    public Object toDTO() {
+        return userMapper.toDTO(user);
+    }
+}
@@ -0,0 +1,55 @@
+package com.smarttracker.product.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Shared, Spring-free setup for the benchmarks.
+ */
+public final class BenchmarkFixtures {
+    
+    public static final String SECRET =
+            "benchmark-secret-key-that-is-at-least-32-characters-long-for-hs256";
+    
+    private BenchmarkFixtures() {
+    }
+    
+    public static JwtUtil jwtUtil(boolean claimsOnly) {
+        return jwtUtil(claimsOnly, "ES256");
+    }
+    
+    /**
+     * @param algorithm signing algorithm, {@code ES256} or {@code EdDSA}
+     */
+    public static JwtUtil jwtUtil(boolean claimsOnly, String algorithm) {
+        JwtUtil jwtUtil = new JwtUtil(new AuthMetrics(new SimpleMeterRegistry()), SigningKeyRing.inMemory(algorithm));
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "benchmark");
+        ReflectionTestUtils.setField(jwtUtil, "acceptLegacyHmac", false);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsOnly", claimsOnly);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+    
+    public static UserPrincipal principal() {
+        return UserPrincipal.builder()
+                .id(42L)
+                .username("jdoe")
+                .email("jdoe@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .password("{bcrypt}$2a$12$abcdefghijklmnopqrstuuQ1Z0Ue1hFq9a7Xx8m5wXq9lq3oTqKy")
+                .authorities(List.of())
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+}
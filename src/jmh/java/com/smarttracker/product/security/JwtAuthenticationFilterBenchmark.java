@@ -0,0 +1,92 @@
+package com.smarttracker.product.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full filter pass for an authenticated request. The user lookup is a stub,
+ * so the numbers cover token handling only. {@code tokenCache} compares
+ * repeat-token cost with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    
+    @Param({"true", "false"})
+    public boolean tokenCache;
+    
+    @Param({"false", "true"})
+    public boolean claimsOnly;
+    
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil(claimsOnly);
+        UserPrincipal user = BenchmarkFixtures.principal();
+        
+        TokenVersionCache tokenVersionCache = new TokenVersionCache(
+                null, meterRegistry, 1_000, Duration.ofMinutes(5)) {
+            @Override
+            public boolean isCurrent(Long userId, Integer tokenVersion) {
+                return true;
+            }
+        };
+        
+        AuthMetrics authMetrics = new AuthMetrics(meterRegistry);
+        
+        filter = new JwtAuthenticationFilter(
+                jwtUtil,
+                new VerifiedTokenCache(jwtUtil, meterRegistry, tokenCache, 10_000),
+                tokenVersionCache,
+                new TokenDenylist(meterRegistry, Duration.ofMinutes(1), ""),
+                username -> user,
+                authMetrics,
+                new OpaqueTokenService(null, tokenVersionCache, authMetrics, meterRegistry, false, 0, 0));
+        
+        request = new MockHttpServletRequest("GET", "/api/v1/products");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(user));
+        response = new MockHttpServletResponse();
+    }
+    
+    @Benchmark
+    public Object doFilterInternal() throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+    
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+}
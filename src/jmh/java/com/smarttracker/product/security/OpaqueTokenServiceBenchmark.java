@@ -0,0 +1,75 @@
+package com.smarttracker.product.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opaque token resolution against a session table holding {@code sessions}
+ * entries at {@code loadFactor}. Tokens are picked at random, so most lookups
+ * miss the CPU caches as they would in production. The user lookup is a stub;
+ * compare with {@link JwtAuthenticationFilterBenchmark} for the JWT path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=2g")
+public class OpaqueTokenServiceBenchmark {
+    
+    @Param({"1000000"})
+    public int sessions;
+    
+    @Param({"0.5", "0.7"})
+    public double loadFactor;
+    
+    private OpaqueTokenService opaqueTokenService;
+    private String[] tokens;
+    
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserPrincipal user = BenchmarkFixtures.principal();
+        
+        TokenVersionCache tokenVersionCache = new TokenVersionCache(
+                null, meterRegistry, 1_000, Duration.ofMinutes(5)) {
+            @Override
+            public boolean isCurrent(Long userId, Integer tokenVersion) {
+                return true;
+            }
+        };
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null, null, null) {
+            @Override
+            public UserPrincipal loadUserById(Long id) {
+                return user;
+            }
+        };
+        
+        opaqueTokenService = new OpaqueTokenService(userDetailsService, tokenVersionCache,
+                new AuthMetrics(meterRegistry), meterRegistry, true, (long) (sessions / loadFactor), 32);
+        
+        tokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            tokens[i] = opaqueTokenService.issue(user, null, Duration.ofHours(1).toMillis());
+        }
+    }
+    
+    @Benchmark
+    public UserPrincipal authenticate() {
+        return opaqueTokenService.authenticate(tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+}
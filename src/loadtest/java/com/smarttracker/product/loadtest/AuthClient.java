@@ -0,0 +1,128 @@
+package com.smarttracker.product.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blocking HTTP client for the auth API. Every call returns whether the
+ * response had the expected status, and updates the session's tokens where
+ * the endpoint issues new ones.
+ */
+final class AuthClient {
+    
+    static final String PASSWORD = "LoadTest-Passw0rd!";
+    
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong userSequence = new AtomicLong();
+    
+    AuthClient(String baseUrl) {
+        this.baseUrl = baseUrl + "/api/v1/auth";
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+    
+    String newUsername() {
+        return "lt" + runId + "u" + userSequence.incrementAndGet();
+    }
+    
+    boolean execute(Endpoint endpoint, Session session, Session[] seededUsers) throws IOException, InterruptedException {
+        return switch (endpoint) {
+            case REGISTER -> register(newUsername());
+            case LOGIN -> login(seededUsers[ThreadLocalRandom.current().nextInt(seededUsers.length)]);
+            case REFRESH -> refresh(session);
+            case ME -> me(session);
+            case CHECK_USERNAME -> checkUsername(ThreadLocalRandom.current().nextBoolean()
+                    ? seededUsers[ThreadLocalRandom.current().nextInt(seededUsers.length)].username
+                    : "free" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+        };
+    }
+    
+    boolean register(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/register", Map.of(
+                "username", username,
+                "email", username + "@loadtest.local",
+                "password", PASSWORD,
+                "confirmPassword", PASSWORD,
+                "firstName", "Load",
+                "lastName", "Test"));
+        return response.statusCode() == 201;
+    }
+    
+    boolean login(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/login", Map.of(
+                "usernameOrEmail", session.username,
+                "password", PASSWORD));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        session.update(objectMapper.readTree(response.body()).path("data"));
+        return true;
+    }
+    
+    boolean refresh(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/refresh-token", Map.of("refreshToken", session.refreshToken));
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        session.update(objectMapper.readTree(response.body()).path("data"));
+        return true;
+    }
+    
+    boolean me(Session session) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/me"))
+                .header("Authorization", "Bearer " + session.accessToken)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+    
+    boolean checkUsername(String username) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/check-username/" + username))
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+    
+    private HttpResponse<String> post(String path, Map<String, String> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+    
+    /**
+     * A logged-in user. Sessions are used by one request at a time, so a
+     * rotated refresh token is never presented twice.
+     */
+    static final class Session {
+        
+        final String username;
+        volatile String accessToken;
+        volatile String refreshToken;
+        
+        Session(String username) {
+            this.username = username;
+        }
+        
+        void update(JsonNode tokens) {
+            accessToken = tokens.path("accessToken").asText();
+            refreshToken = tokens.path("refreshToken").asText();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.smarttracker.product.loadtest;
+
+import java.util.Arrays;
+
+enum Endpoint {
+    
+    REGISTER("register", false),
+    LOGIN("login", false),
+    REFRESH("refresh", true),
+    ME("me", true),
+    CHECK_USERNAME("check-username", false);
+    
+    final String label;
+    final boolean needsSession;
+    
+    Endpoint(String label, boolean needsSession) {
+        this.label = label;
+        this.needsSession = needsSession;
+    }
+    
+    static Endpoint fromName(String name) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.label.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in mix: " + name));
+    }
+}
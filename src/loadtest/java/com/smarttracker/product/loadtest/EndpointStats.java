@@ -0,0 +1,67 @@
+package com.smarttracker.product.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters for one endpoint. Latencies are
+ * recorded in microseconds, from one microsecond up to one hour, with three
+ * significant digits. Late requests went out after their intended start time
+ * and are still recorded; dropped requests were never completed and are not.
+ */
+final class EndpointStats {
+    
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    void record(long latencyNanos, boolean success) {
+        histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (!success) {
+            errors.increment();
+        }
+    }
+    
+    void recordLate() {
+        late.increment();
+    }
+    
+    void recordDropped() {
+        dropped.increment();
+    }
+    
+    void reset() {
+        histogram.reset();
+        errors.reset();
+        late.reset();
+        dropped.reset();
+    }
+    
+    long count() {
+        return histogram.getTotalCount();
+    }
+    
+    long errors() {
+        return errors.sum();
+    }
+    
+    long late() {
+        return late.sum();
+    }
+    
+    long dropped() {
+        return dropped.sum();
+    }
+    
+    double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+    
+    double maxMillis() {
+        return histogram.getMaxValue() / 1000.0;
+    }
+}
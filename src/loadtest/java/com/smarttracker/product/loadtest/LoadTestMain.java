@@ -0,0 +1,301 @@
+package com.smarttracker.product.loadtest;
+
+import com.smarttracker.product.SmartProductTrackerApplication;
+import com.smarttracker.product.loadtest.AuthClient.Session;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the auth endpoints.
+ *
+ * <p>Unless {@code --base-url} is given, the application is booted in-process
+ * against an in-memory H2 database in PostgreSQL mode. Users are seeded and
+ * logged in, then a weighted mix of requests is driven for the warm-up and
+ * measurement periods:
+ * <ul>
+ *   <li>{@code --mode=closed}: {@code concurrency} workers, each sending its
+ *       next request as soon as the previous one completes</li>
+ *   <li>{@code --mode=open}: requests are started at a fixed {@code rate}
+ *       regardless of completions. Latency is measured from the intended start
+ *       time, so queueing delay is not hidden (no coordinated omission).</li>
+ * </ul>
+ * p50, p99, p99.9, max and throughput are reported per endpoint, along with
+ * the requests that went out late (behind schedule, or waiting for a free
+ * session) and those dropped because they had not completed a minute after
+ * the run ended.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadTestArgs="--mode=open --rate=300 --duration=2m --mix=login:20,me:80"
+ * </pre>
+ *
+ * <p>{@code --compare-threading=true} runs the same workload twice, on
+ * platform threads and then with the {@code virtual-threads} profile (Java 21+).
+ * {@code --spring.profiles.active=reactive} drives the WebFlux/R2DBC stack instead;
+ * run it with {@code -Preactive} so those jars are on the classpath.
+ */
+public final class LoadTestMain {
+    
+    private static final long LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+    
+    private LoadTestMain() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        
+        if (options.baseUrl != null) {
+            run(options, new AuthClient(options.baseUrl));
+            return;
+        }
+        
+        if (!options.compareThreading) {
+            runEmbedded(options, options.applicationArgs);
+            return;
+        }
+        
+        // Same workload against both execution modes, one after the other
+        System.out.println("== Platform threads ==");
+        runEmbedded(options, withArg(options.applicationArgs, "--spring.threads.virtual.enabled=false"));
+        
+        if (Runtime.version().feature() < 21) {
+            System.out.println("Virtual threads need Java 21+ (run with -PjavaVersion=21); skipping that run");
+            return;
+        }
+        System.out.println();
+        System.out.println("== Virtual threads ==");
+        runEmbedded(options, withArg(options.applicationArgs, "--spring.profiles.active=virtual-threads"));
+    }
+    
+    private static void runEmbedded(LoadTestOptions options, List<String> applicationArgs) throws Exception {
+        try (ConfigurableApplicationContext context = startApplication(applicationArgs)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            run(options, new AuthClient("http://localhost:" + port));
+        }
+    }
+    
+    private static List<String> withArg(List<String> args, String arg) {
+        List<String> result = new ArrayList<>(args);
+        result.add(arg);
+        return result;
+    }
+    
+    private static ConfigurableApplicationContext startApplication(List<String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        // Same in-memory database over R2DBC, used with --spring.profiles.active=reactive
+        properties.put("spring.r2dbc.url",
+                "r2dbc:h2:mem:///loadtest?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.r2dbc.username", "sa");
+        properties.put("spring.r2dbc.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.smarttracker.product", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.put("app.security.denylist.snapshot-file", "");
+        properties.put("app.security.rate-limit.enabled", "false");
+        // Signing keys live in the in-memory database, so a per-run secret is enough
+        properties.put("jwt.signing.key-encryption-secret", UUID.randomUUID().toString());
+        
+        // Command line overrides win; duplicate arguments would otherwise be merged into a list
+        for (String override : overrides) {
+            int separator = override.indexOf('=');
+            properties.put(override.substring(2, separator), override.substring(separator + 1));
+        }
+        
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        
+        return new SpringApplicationBuilder(SmartProductTrackerApplication.class).run(args);
+    }
+    
+    private static void run(LoadTestOptions options, AuthClient client) throws Exception {
+        Session[] seeded = seedUsers(client, options.users, options.concurrency);
+        BlockingQueue<Session> sessions = new ArrayBlockingQueue<>(seeded.length);
+        for (Session session : seeded) {
+            sessions.add(session);
+        }
+        
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : options.mix.keySet()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        Endpoint[] weighted = weightedEndpoints(options.mix);
+        
+        long warmupEnd = System.nanoTime() + options.warmup.toNanos();
+        long end = warmupEnd + options.duration.toNanos();
+        
+        System.out.printf("Running %s-loop load for %ds (+%ds warm-up)%n",
+                options.mode.name().toLowerCase(), options.duration.toSeconds(), options.warmup.toSeconds());
+        
+        Runnable resetAtWarmupEnd = () -> stats.values().forEach(EndpointStats::reset);
+        if (options.mode == LoadTestOptions.Mode.CLOSED) {
+            runClosedLoop(options, client, seeded, sessions, stats, weighted, warmupEnd, end, resetAtWarmupEnd);
+        } else {
+            runOpenLoop(options, client, seeded, sessions, stats, weighted, warmupEnd, end, resetAtWarmupEnd);
+        }
+        
+        report(stats, options.duration.toNanos() / 1e9);
+    }
+    
+    private static void runClosedLoop(LoadTestOptions options, AuthClient client, Session[] seeded,
+                                      BlockingQueue<Session> sessions, Map<Endpoint, EndpointStats> stats,
+                                      Endpoint[] weighted, long warmupEnd, long end,
+                                      Runnable resetAtWarmupEnd) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int i = 0; i < options.concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                while (System.nanoTime() < end) {
+                    Endpoint endpoint = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                    long start = System.nanoTime();
+                    send(client, endpoint, seeded, sessions, stats.get(endpoint), start);
+                }
+                return null;
+            }));
+        }
+        
+        sleepUntil(warmupEnd);
+        resetAtWarmupEnd.run();
+        
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        workers.shutdown();
+    }
+    
+    private static void runOpenLoop(LoadTestOptions options, AuthClient client, Session[] seeded,
+                                    BlockingQueue<Session> sessions, Map<Endpoint, EndpointStats> stats,
+                                    Endpoint[] weighted, long warmupEnd, long end,
+                                    Runnable resetAtWarmupEnd) throws Exception {
+        // Unbounded so a slow server shows up as latency, not as a lower send rate
+        ExecutorService senders = Executors.newCachedThreadPool();
+        long interval = (long) (1e9 / options.rate);
+        long start = System.nanoTime();
+        boolean warmedUp = false;
+        
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * interval;
+            if (intendedStart >= end) {
+                break;
+            }
+            if (!warmedUp && intendedStart >= warmupEnd) {
+                resetAtWarmupEnd.run();
+                warmedUp = true;
+            }
+            
+            sleepUntil(intendedStart);
+            Endpoint endpoint = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+            senders.execute(() -> send(client, endpoint, seeded, sessions, stats.get(endpoint), intendedStart));
+        }
+        
+        // Arrivals still pending after the drain timeout are interrupted and counted as dropped
+        senders.shutdown();
+        if (!senders.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            senders.shutdownNow();
+            senders.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+    
+    private static void send(AuthClient client, Endpoint endpoint, Session[] seeded,
+                             BlockingQueue<Session> sessions, EndpointStats stats, long intendedStart) {
+        Session session = null;
+        boolean success;
+        try {
+            // Waiting for a free session is part of the request's latency, never a reason to skip it
+            if (endpoint.needsSession) {
+                session = sessions.take();
+            }
+            if (System.nanoTime() - intendedStart > LATE_THRESHOLD_NANOS) {
+                stats.recordLate();
+            }
+            success = client.execute(endpoint, session, seeded);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.recordDropped();
+            return;
+        } catch (Exception e) {
+            success = false;
+        } finally {
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        stats.record(System.nanoTime() - intendedStart, success);
+    }
+    
+    private static Session[] seedUsers(AuthClient client, int count, int parallelism) throws Exception {
+        System.out.printf("Seeding %d users...%n", count);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        List<Future<Session>> futures = new ArrayList<>();
+        
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(() -> {
+                Session session = new Session(client.newUsername());
+                if (!client.register(session.username) || !client.login(session)) {
+                    throw new IllegalStateException("Failed to seed user " + session.username);
+                }
+                return session;
+            }));
+        }
+        
+        Session[] sessions = new Session[count];
+        for (int i = 0; i < count; i++) {
+            sessions[i] = futures.get(i).get();
+        }
+        executor.shutdown();
+        return sessions;
+    }
+    
+    private static Endpoint[] weightedEndpoints(Map<Endpoint, Integer> mix) {
+        List<Endpoint> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        return weighted.toArray(Endpoint[]::new);
+    }
+    
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+    
+    private static void report(Map<Endpoint, EndpointStats> stats, double seconds) {
+        System.out.println();
+        System.out.printf("%-16s %10s %8s %8s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "late", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        
+        stats.forEach((endpoint, s) -> System.out.printf("%-16s %10d %8d %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                endpoint.label, s.count(), s.errors(), s.late(), s.dropped(), s.count() / seconds,
+                s.percentileMillis(50), s.percentileMillis(99), s.percentileMillis(99.9), s.maxMillis()));
+    }
+}
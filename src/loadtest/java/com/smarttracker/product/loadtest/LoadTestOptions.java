@@ -0,0 +1,85 @@
+package com.smarttracker.product.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options for {@link LoadTestMain}. Arguments are
+ * {@code --name=value}. Anything starting with {@code --spring.}, {@code --app.},
+ * {@code --jwt.} or {@code --server.} is passed to the embedded application.
+ */
+final class LoadTestOptions {
+    
+    enum Mode { CLOSED, OPEN }
+    
+    Mode mode = Mode.CLOSED;
+    int concurrency = 32;
+    double rate = 500;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(10);
+    int users = 200;
+    String baseUrl;
+    boolean compareThreading;
+    Map<Endpoint, Integer> mix = parseMix("login:10,me:60,refresh:10,register:5,check-username:15");
+    final List<String> applicationArgs = new ArrayList<>();
+    
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            
+            switch (name) {
+                case "mode" -> options.mode = Mode.valueOf(value.toUpperCase());
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "base-url" -> options.baseUrl = value;
+                case "compare-threading" -> options.compareThreading = Boolean.parseBoolean(value);
+                case "mix" -> options.mix = parseMix(value);
+                default -> {
+                    if (name.startsWith("spring.") || name.startsWith("app.")
+                            || name.startsWith("jwt.") || name.startsWith("server.")) {
+                        options.applicationArgs.add(arg);
+                    } else {
+                        throw new IllegalArgumentException("Unknown option: --" + name);
+                    }
+                }
+            }
+        }
+        return options;
+    }
+    
+    // "login:10,me:60" -> weights per endpoint
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] entry = part.trim().split(":");
+            mix.put(Endpoint.fromName(entry[0]), Integer.parseInt(entry[1]));
+        }
+        return mix;
+    }
+    
+    // Accepts 30s, 5m or plain seconds
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
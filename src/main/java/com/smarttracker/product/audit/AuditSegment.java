@@ -0,0 +1,433 @@
+package com.smarttracker.product.audit;
+
+import com.smarttracker.product.dto.AuthAuditEvent;
+import com.smarttracker.product.security.AuthMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of the auth audit log: a header slot followed by
+ * fixed-size 128-byte records, appended by a single writer thread.
+ *
+ * <pre>
+ *  0  timestamp   epoch millis; 0 marks the end of the written records
+ *  8  user id     0 when unknown (failed logins)
+ * 16  user hash   64-bit hash of the lower-cased username
+ * 24  type        AuthAuditEvent.Type ordinal + 1
+ * 25  outcome     AuthMetrics.Outcome ordinal + 1
+ * 26  name length UTF-8 bytes used in the name field
+ * 28  checksum    CRC32C of the record with this field zeroed
+ * 32  name        UTF-8 username or email, truncated to 96 bytes
+ * </pre>
+ *
+ * <p>Every 64 records form a block, and the sparse index keeps, per block,
+ * the lowest and highest timestamp and a 512-bit Bloom filter of the user
+ * hashes in it. A query reads only the blocks whose time range overlaps and
+ * whose filter matches the user. The index of a full segment is written next
+ * to it as {@code .idx} when it is sealed; the active segment's is rebuilt by
+ * scanning at startup, which also finds where the last run stopped writing.
+ * A torn record at the tail fails its checksum and is overwritten.
+ *
+ * <p>Queries run concurrently with appends without locking: the writer
+ * publishes each record by advancing the volatile record count after writing
+ * it and its index entry, and readers never look past that count.
+ */
+@Slf4j
+final class AuditSegment {
+    
+    static final int RECORD_BYTES = 128;
+    static final int MAX_NAME_BYTES = 96;
+    static final int RECORDS_PER_BLOCK = 64;
+    
+    private static final int MAGIC = 0x41554454; // "AUDT"
+    private static final int INDEX_MAGIC = 0x41554458; // "AUDX"
+    private static final int VERSION = 1;
+    
+    private static final int TIMESTAMP = 0;
+    private static final int USER_ID = 8;
+    private static final int USER_HASH = 16;
+    private static final int TYPE = 24;
+    private static final int OUTCOME = 25;
+    private static final int NAME_LENGTH = 26;
+    private static final int CHECKSUM = 28;
+    private static final int NAME = 32;
+    
+    private static final int BLOOM_WORDS = 8;
+    private static final int BLOOM_HASHES = 3;
+    
+    private static final AuthAuditEvent.Type[] TYPES = AuthAuditEvent.Type.values();
+    private static final AuthMetrics.Outcome[] OUTCOMES = AuthMetrics.Outcome.values();
+    
+    private final long sequence;
+    private final Path file;
+    private final int capacity;
+    private final long[] blockMinTime;
+    private final long[] blockMaxTime;
+    private final long[] blockBloom;
+    private final CRC32C checksum = new CRC32C();
+    
+    private volatile ByteBuffer buffer;
+    private volatile int committed;
+    private volatile long minTime = Long.MAX_VALUE;
+    private volatile long maxTime = Long.MIN_VALUE;
+    
+    private AuditSegment(long sequence, Path file, int capacity, ByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.capacity = capacity;
+        this.buffer = buffer;
+        int blocks = (capacity + RECORDS_PER_BLOCK - 1) / RECORDS_PER_BLOCK;
+        this.blockMinTime = new long[blocks];
+        this.blockMaxTime = new long[blocks];
+        this.blockBloom = new long[blocks * BLOOM_WORDS];
+        Arrays.fill(blockMinTime, Long.MAX_VALUE);
+        Arrays.fill(blockMaxTime, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Creates and maps a new, empty segment holding {@code capacity} records.
+     * A file left behind by a failed attempt is removed so the next can succeed.
+     */
+    static AuditSegment create(Path file, long sequence, int capacity) throws IOException {
+        MappedByteBuffer buffer;
+        try {
+            buffer = map(file, (long) (capacity + 1) * RECORD_BYTES, true, StandardOpenOption.CREATE_NEW);
+        } catch (IOException | RuntimeException e) {
+            if (!(e instanceof FileAlreadyExistsException)) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+        buffer.putLong(16, System.currentTimeMillis());
+        return new AuditSegment(sequence, file, capacity, buffer);
+    }
+    
+    /**
+     * Opens an existing segment. The active one is mapped for writing and
+     * scanned; a sealed one loads its {@code .idx} (rebuilding it if missing)
+     * and is mapped read-only on the first query that needs it.
+     */
+    static AuditSegment open(Path file, long sequence, boolean active) throws IOException {
+        long size = Files.size(file);
+        if (size < 2L * RECORD_BYTES || size % RECORD_BYTES != 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("Not an audit segment: " + file);
+        }
+        int capacity = (int) (size / RECORD_BYTES) - 1;
+        
+        if (!active) {
+            AuditSegment sealed = new AuditSegment(sequence, file, capacity, null);
+            if (sealed.loadIndex()) {
+                return sealed;
+            }
+        }
+        
+        MappedByteBuffer buffer = map(file, size, active);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_BYTES) {
+            throw new IOException("Unknown audit segment format: " + file);
+        }
+        AuditSegment segment = new AuditSegment(sequence, file, capacity, buffer);
+        segment.rebuildIndex();
+        if (!active) {
+            segment.writeIndex();
+        }
+        return segment;
+    }
+    
+    /**
+     * Appends one record. Writer thread only.
+     *
+     * @param name UTF-8 name, {@code nameLength} bytes of which are used
+     * @param scratch the writer's {@link #RECORD_BYTES}-byte little-endian heap buffer
+     * @return {@code false} if the segment is full
+     */
+    boolean append(long timestamp, long userId, long userHash, AuthAuditEvent.Type type,
+                   AuthMetrics.Outcome outcome, byte[] name, int nameLength, ByteBuffer scratch) {
+        int index = committed;
+        if (index == capacity) {
+            return false;
+        }
+        
+        byte[] record = scratch.array();
+        Arrays.fill(record, (byte) 0);
+        scratch.putLong(TIMESTAMP, timestamp);
+        scratch.putLong(USER_ID, userId);
+        scratch.putLong(USER_HASH, userHash);
+        scratch.put(TYPE, (byte) (type.ordinal() + 1));
+        scratch.put(OUTCOME, (byte) (outcome.ordinal() + 1));
+        scratch.putShort(NAME_LENGTH, (short) nameLength);
+        System.arraycopy(name, 0, record, NAME, nameLength);
+        checksum.reset();
+        checksum.update(record, 0, RECORD_BYTES);
+        scratch.putInt(CHECKSUM, (int) checksum.getValue());
+        
+        // One bulk copy into the mapping
+        buffer.put(offset(index), record);
+        index(index, timestamp, userHash);
+        committed = index + 1;
+        return true;
+    }
+    
+    /**
+     * Adds this segment's events for the user within {@code [from, to]} to {@code out}.
+     *
+     * @param username the name as stored, i.e. already cut to {@link #MAX_NAME_BYTES}
+     */
+    void find(long userHash, String username, long from, long to, List<AuthAuditEvent> out) throws IOException {
+        int count = committed;
+        if (count == 0 || minTime > to || maxTime < from) {
+            return;
+        }
+        
+        ByteBuffer records = buffer();
+        if (records == null) {
+            return;
+        }
+        int lastBlock = (count - 1) / RECORDS_PER_BLOCK;
+        for (int block = 0; block <= lastBlock; block++) {
+            // The block still being filled is scanned whole; its index entry may be mid-update
+            boolean complete = block < lastBlock || count == capacity;
+            if (complete && (blockMinTime[block] > to || blockMaxTime[block] < from
+                    || !bloomMightContain(block, userHash))) {
+                continue;
+            }
+            
+            int end = Math.min(count, (block + 1) * RECORDS_PER_BLOCK);
+            for (int index = block * RECORDS_PER_BLOCK; index < end; index++) {
+                int base = offset(index);
+                long timestamp = records.getLong(base + TIMESTAMP);
+                if (timestamp < from || timestamp > to || records.getLong(base + USER_HASH) != userHash) {
+                    continue;
+                }
+                AuthAuditEvent event = decode(records, base);
+                if (event.getUsername().equalsIgnoreCase(username)) {
+                    out.add(event);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes the sparse index next to the segment so that later starts need
+     * not scan it. Called once the segment is full.
+     */
+    void seal() throws IOException {
+        force();
+        writeIndex();
+    }
+    
+    void force() {
+        if (buffer instanceof MappedByteBuffer mapped && !mapped.isReadOnly()) {
+            mapped.force();
+        }
+    }
+    
+    void delete() throws IOException {
+        Files.deleteIfExists(indexFile());
+        Files.deleteIfExists(file);
+    }
+    
+    long sequence() {
+        return sequence;
+    }
+    
+    int size() {
+        return committed;
+    }
+    
+    boolean isFull() {
+        return committed == capacity;
+    }
+    
+    private AuthAuditEvent decode(ByteBuffer records, int base) {
+        long userId = records.getLong(base + USER_ID);
+        int nameLength = records.getShort(base + NAME_LENGTH);
+        byte[] name = new byte[nameLength];
+        records.get(base + NAME, name);
+        return AuthAuditEvent.builder()
+                .timestamp(Instant.ofEpochMilli(records.getLong(base + TIMESTAMP)))
+                .type(TYPES[records.get(base + TYPE) - 1])
+                .outcome(OUTCOMES[records.get(base + OUTCOME) - 1])
+                .userId(userId == 0 ? null : userId)
+                .username(new String(name, StandardCharsets.UTF_8))
+                .build();
+    }
+    
+    private void index(int index, long timestamp, long userHash) {
+        int block = index / RECORDS_PER_BLOCK;
+        blockMinTime[block] = Math.min(blockMinTime[block], timestamp);
+        blockMaxTime[block] = Math.max(blockMaxTime[block], timestamp);
+        int h1 = (int) userHash;
+        int h2 = (int) (userHash >>> 32);
+        for (int i = 1; i <= BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & (BLOOM_WORDS * Long.SIZE - 1);
+            blockBloom[block * BLOOM_WORDS + (bit >>> 6)] |= 1L << bit;
+        }
+        minTime = Math.min(minTime, timestamp);
+        maxTime = Math.max(maxTime, timestamp);
+    }
+    
+    private boolean bloomMightContain(int block, long userHash) {
+        int h1 = (int) userHash;
+        int h2 = (int) (userHash >>> 32);
+        for (int i = 1; i <= BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & (BLOOM_WORDS * Long.SIZE - 1);
+            if ((blockBloom[block * BLOOM_WORDS + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Walks the records up to the first empty slot or checksum mismatch
+    private void rebuildIndex() {
+        ByteBuffer records = buffer;
+        byte[] scratch = new byte[RECORD_BYTES];
+        ByteBuffer record = ByteBuffer.wrap(scratch).order(ByteOrder.LITTLE_ENDIAN);
+        
+        int index = 0;
+        for (; index < capacity; index++) {
+            records.get(offset(index), scratch);
+            long timestamp = record.getLong(TIMESTAMP);
+            if (timestamp == 0) {
+                break;
+            }
+            int stored = record.getInt(CHECKSUM);
+            record.putInt(CHECKSUM, 0);
+            checksum.reset();
+            checksum.update(scratch, 0, RECORD_BYTES);
+            if ((int) checksum.getValue() != stored) {
+                log.warn("Audit segment {} ends with a torn record at {}; later records are ignored", file, index);
+                break;
+            }
+            index(index, timestamp, record.getLong(USER_HASH));
+        }
+        committed = index;
+    }
+    
+    private boolean loadIndex() {
+        Path indexFile = indexFile();
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            int count = in.readInt();
+            if (count < 0 || count > capacity) {
+                return false;
+            }
+            long min = in.readLong();
+            long max = in.readLong();
+            int blocks = (count + RECORDS_PER_BLOCK - 1) / RECORDS_PER_BLOCK;
+            for (int block = 0; block < blocks; block++) {
+                blockMinTime[block] = in.readLong();
+                blockMaxTime[block] = in.readLong();
+                for (int word = 0; word < BLOOM_WORDS; word++) {
+                    blockBloom[block * BLOOM_WORDS + word] = in.readLong();
+                }
+            }
+            minTime = min;
+            maxTime = max;
+            committed = count;
+            return true;
+        } catch (IOException e) {
+            log.warn("Rebuilding unreadable audit index {}: {}", indexFile, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void writeIndex() throws IOException {
+        Path indexFile = indexFile();
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), indexFile.getFileName().toString(), ".tmp");
+        
+        int count = committed;
+        int blocks = (count + RECORDS_PER_BLOCK - 1) / RECORDS_PER_BLOCK;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            for (int block = 0; block < blocks; block++) {
+                out.writeLong(blockMinTime[block]);
+                out.writeLong(blockMaxTime[block]);
+                for (int word = 0; word < BLOOM_WORDS; word++) {
+                    out.writeLong(blockBloom[block * BLOOM_WORDS + word]);
+                }
+            }
+        }
+        
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Sealed segments loaded from their index are mapped when first queried
+    private ByteBuffer buffer() throws IOException {
+        ByteBuffer mapped = buffer;
+        if (mapped == null) {
+            synchronized (this) {
+                mapped = buffer;
+                if (mapped == null) {
+                    try {
+                        mapped = map(file, Files.size(file), false);
+                    } catch (NoSuchFileException e) {
+                        return null; // removed by retention while this query was running
+                    }
+                    buffer = mapped;
+                }
+            }
+        }
+        return mapped;
+    }
+    
+    private Path indexFile() {
+        return file.resolveSibling(file.getFileName().toString().replace(".seg", ".idx"));
+    }
+    
+    private static int offset(int index) {
+        return (index + 1) * RECORD_BYTES;
+    }
+    
+    private static MappedByteBuffer map(Path file, long size, boolean writable, StandardOpenOption... extra)
+            throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[] {StandardOpenOption.READ};
+        if (extra.length > 0) {
+            options = Arrays.copyOf(options, options.length + extra.length);
+            System.arraycopy(extra, 0, options, options.length - extra.length, extra.length);
+        }
+        
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            MappedByteBuffer mapped = channel.map(
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return mapped;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.smarttracker.product.audit;
+
+import com.smarttracker.product.dto.AuthAuditEvent;
+import com.smarttracker.product.security.AuthMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit log of logins, failed logins, refreshes and logouts,
+ * kept in memory-mapped segment files under {@code app.audit.directory}
+ * instead of the database.
+ *
+ * <p>{@link #record} only puts the event on a lock-free queue; a single
+ * writer thread encodes each one into a fixed-size record of the active
+ * {@link AuditSegment} and starts a new segment when it is full. The mapping
+ * is forced to disk every {@code force-interval}. Written records live in
+ * the page cache, so a process crash loses only the events still queued, at
+ * most {@code queue-capacity} of them; a power failure also loses up to
+ * {@code force-interval} of written ones. The queue is bounded: once
+ * {@code queue-capacity} events are waiting, the caller waits up to
+ * {@code offer-timeout} for the writer to make room, and only then is the
+ * event dropped and counted ({@code audit.auth.events.dropped}). Event-loop
+ * threads never wait themselves; they hand the event to a worker that does.
+ *
+ * <p>If a new segment cannot be created when the active one is full, events
+ * fail ({@code audit.auth.events.failed}) without further I/O until the next
+ * attempt, which is retried with a growing delay.
+ *
+ * <p>{@link #find} answers "the latest events for this user in this time
+ * range" using each segment's sparse index, reading only the blocks that may
+ * hold the user, and searching the newest segments first.
+ */
+@Component
+@Slf4j
+public class AuthAuditLog {
+    
+    private static final Pattern SEGMENT_NAME = Pattern.compile("auth-audit-(\\d{10})\\.seg");
+    private static final long OFFER_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long MIN_ROLL_OVER_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_ROLL_OVER_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // Reactor is only on the classpath of -Preactive builds
+    private static final boolean REACTOR_PRESENT =
+            ClassUtils.isPresent("reactor.core.scheduler.Schedulers", AuthAuditLog.class.getClassLoader());
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final int queueCapacity;
+    private final long offerTimeoutNanos;
+    private final long forceIntervalNanos;
+    
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    
+    // Writer thread only
+    private final CharsetEncoder nameEncoder = newNameEncoder();
+    private final ByteBuffer name = ByteBuffer.allocate(AuditSegment.MAX_NAME_BYTES);
+    private final ByteBuffer scratch = ByteBuffer.allocate(AuditSegment.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private AuditSegment active;
+    private boolean activeSealed;
+    private long rollOverBackoffNanos;
+    private long rollOverFailedAt;
+    
+    private volatile Thread writer;
+    private volatile boolean running;
+    
+    public AuthAuditLog(MeterRegistry meterRegistry,
+                        @Value("${app.audit.enabled:true}") boolean enabled,
+                        @Value("${app.audit.directory:./data/audit}") String directory,
+                        @Value("${app.audit.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${app.audit.max-segments:0}") int maxSegments,
+                        @Value("${app.audit.queue-capacity:65536}") int queueCapacity,
+                        @Value("${app.audit.offer-timeout:100ms}") Duration offerTimeout,
+                        @Value("${app.audit.force-interval:1s}") Duration forceInterval) {
+        long segmentBytes = segmentSize.toBytes();
+        if (segmentBytes < 2L * AuditSegment.RECORD_BYTES || segmentBytes > 1L << 30) {
+            throw new IllegalArgumentException("app.audit.segment-size must be between 256B and 1GB");
+        }
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentRecords = (int) (segmentBytes / AuditSegment.RECORD_BYTES) - 1;
+        this.maxSegments = maxSegments;
+        this.queueCapacity = queueCapacity;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.forceIntervalNanos = forceInterval.toNanos();
+        
+        this.written = Counter.builder("audit.auth.events.written").register(meterRegistry);
+        this.dropped = Counter.builder("audit.auth.events.dropped")
+                .description("Audit events discarded because the queue stayed full for offer-timeout")
+                .register(meterRegistry);
+        this.failed = Counter.builder("audit.auth.events.failed")
+                .description("Audit events lost to an I/O error")
+                .register(meterRegistry);
+        Gauge.builder("audit.auth.queue.size", queued, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("audit.auth.segments", segments, List::size)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Queues an event for the writer thread. Only waits when the queue is
+     * full, for at most {@code offer-timeout}, and never on an event-loop thread.
+     *
+     * @param userId the user's id, or {@code null} when not known
+     * @param username the username, or for failed logins the identifier the client sent
+     */
+    public void record(AuthAuditEvent.Type type, AuthMetrics.Outcome outcome, Long userId, String username) {
+        if (!running) {
+            return;
+        }
+        Pending event = new Pending(System.currentTimeMillis(), type, outcome, userId == null ? 0 : userId,
+                username == null ? "" : username);
+        if (offer(event)) {
+            return;
+        }
+        
+        if (offerTimeoutNanos <= 0) {
+            dropped.increment();
+        } else if (REACTOR_PRESENT && ReactorOffload.isInNonBlockingThread()) {
+            try {
+                ReactorOffload.schedule(() -> offerOrDrop(event));
+            } catch (RejectedExecutionException e) {
+                dropped.increment();
+            }
+        } else {
+            offerOrDrop(event);
+        }
+    }
+    
+    /**
+     * Returns the user's most recent events within {@code [from, to]}, newest
+     * first, at most {@code limit} of them. To read further back, call again
+     * with {@code to} set to the oldest timestamp returned; events at exactly
+     * that instant are returned again. Events still in the queue are not
+     * included, and neither are those recorded by other instances: each keeps
+     * its own log.
+     */
+    public List<AuthAuditEvent> find(String username, Instant from, Instant to, int limit) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        long userHash = hash(username);
+        // Records hold at most MAX_NAME_BYTES of the name, so long names are compared in that form
+        String storedName = storedName(username);
+        
+        List<AuthAuditEvent> events = new ArrayList<>();
+        List<AuditSegment> snapshot = List.copyOf(segments);
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            try {
+                snapshot.get(i).find(userHash, storedName, fromMillis, toMillis, events);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (events.size() >= limit) {
+                // Older segments only need to be searched back to the oldest event kept so far
+                keepNewest(events, limit);
+                fromMillis = events.get(limit - 1).getTimestamp().toEpochMilli();
+            }
+        }
+        keepNewest(events, limit);
+        return events;
+    }
+    
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+        
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            segments.add(AuditSegment.open(file, sequenceOf(file), i == files.size() - 1));
+        }
+        active = segments.isEmpty() || segments.get(segments.size() - 1).isFull()
+                ? newSegment()
+                : segments.get(segments.size() - 1);
+        enforceRetention();
+        
+        long events = segments.stream().mapToLong(AuditSegment::size).sum();
+        log.info("Auth audit log in {}: {} segments, {} events", directory.toAbsolutePath(), segments.size(), events);
+        
+        running = true;
+        Thread thread = new Thread(this::writeLoop, "auth-audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    
+    private boolean offer(Pending event) {
+        int size = queued.incrementAndGet();
+        if (size > queueCapacity) {
+            queued.decrementAndGet();
+            return false;
+        }
+        
+        queue.offer(event);
+        if (size == 1) {
+            // The queue was empty, so the writer may be parked
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+    
+    // Waits up to offer-timeout for the writer to drain the full queue
+    private void offerOrDrop(Pending event) {
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        LockSupport.unpark(writer);
+        while (!offer(event)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(this, Math.min(remaining, OFFER_RETRY_NANOS));
+        }
+    }
+    
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            Pending event;
+            while ((event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                dirty |= append(event);
+            }
+            
+            if (dirty && (!running || System.nanoTime() - lastForce >= forceIntervalNanos)) {
+                force();
+                lastForce = System.nanoTime();
+                dirty = false;
+            }
+            if (running) {
+                LockSupport.parkNanos(this, forceIntervalNanos);
+            } else if (queue.isEmpty()) {
+                return;
+            }
+        }
+    }
+    
+    private void force() {
+        try {
+            active.force();
+        } catch (RuntimeException e) {
+            log.error("Failed to force auth audit segment {} to disk: {}", active.sequence(), e.getMessage());
+        }
+    }
+    
+    private boolean append(Pending event) {
+        name.clear();
+        nameEncoder.reset();
+        // Stops at the last whole character that fits
+        nameEncoder.encode(CharBuffer.wrap(event.username()), name, true);
+        long userHash = hash(event.username());
+        
+        try {
+            if (!active.append(event.timestamp(), event.userId(), userHash, event.type(), event.outcome(),
+                    name.array(), name.position(), scratch)) {
+                if (!rollOver()) {
+                    failed.increment();
+                    return false;
+                }
+                active.append(event.timestamp(), event.userId(), userHash, event.type(), event.outcome(),
+                        name.array(), name.position(), scratch);
+            }
+            written.increment();
+            return true;
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Failed to write auth audit event: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Seals the full active segment and starts the next one. After a failure
+     * nothing is retried until a backoff of 1s, doubling up to 1m, has passed,
+     * so that a full disk does not cost every event another attempt.
+     */
+    private boolean rollOver() {
+        if (rollOverBackoffNanos > 0 && System.nanoTime() - rollOverFailedAt < rollOverBackoffNanos) {
+            return false;
+        }
+        
+        try {
+            if (!activeSealed) {
+                active.seal();
+                activeSealed = true;
+            }
+            active = newSegment();
+            activeSealed = false;
+            rollOverBackoffNanos = 0;
+        } catch (IOException | RuntimeException e) {
+            rollOverBackoffNanos = rollOverBackoffNanos == 0
+                    ? MIN_ROLL_OVER_BACKOFF_NANOS
+                    : Math.min(rollOverBackoffNanos * 2, MAX_ROLL_OVER_BACKOFF_NANOS);
+            rollOverFailedAt = System.nanoTime();
+            log.error("Failed to start a new auth audit segment after {}; events are lost until the next attempt "
+                    + "in {} ms: {}", active.sequence(), TimeUnit.NANOSECONDS.toMillis(rollOverBackoffNanos), e.getMessage());
+            return false;
+        }
+        
+        try {
+            enforceRetention();
+        } catch (IOException e) {
+            log.error("Failed to delete auth audit segments past the retention limit: {}", e.getMessage());
+        }
+        return true;
+    }
+    
+    private AuditSegment newSegment() throws IOException {
+        long sequence = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).sequence() + 1;
+        Path file = directory.resolve(String.format(Locale.ROOT, "auth-audit-%010d.seg", sequence));
+        AuditSegment segment = AuditSegment.create(file, sequence, segmentRecords);
+        segments.add(segment);
+        return segment;
+    }
+    
+    private void enforceRetention() throws IOException {
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            AuditSegment oldest = segments.remove(0);
+            oldest.delete();
+            log.info("Deleted auth audit segment {} ({} events) past the retention limit",
+                    oldest.sequence(), oldest.size());
+        }
+    }
+    
+    private static void keepNewest(List<AuthAuditEvent> events, int limit) {
+        events.sort(Comparator.comparing(AuthAuditEvent::getTimestamp).reversed());
+        if (events.size() > limit) {
+            events.subList(limit, events.size()).clear();
+        }
+    }
+    
+    private static CharsetEncoder newNameEncoder() {
+        return StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    
+    // The name as append() stores it: UTF-8, cut at the last whole character that fits
+    private static String storedName(String username) {
+        ByteBuffer bytes = ByteBuffer.allocate(AuditSegment.MAX_NAME_BYTES);
+        newNameEncoder().encode(CharBuffer.wrap(username), bytes, true);
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+    }
+    
+    private static long sequenceOf(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        matcher.matches();
+        return Long.parseLong(matcher.group(1));
+    }
+    
+    // FNV-1a over the lower-cased name, then the MurmurHash3 finalizer; stored in segments, so it must not change
+    static long hash(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private record Pending(long timestamp, AuthAuditEvent.Type type, AuthMetrics.Outcome outcome,
+                           long userId, String username) {
+    }
+    
+    // Loaded on first use, which only happens when Reactor is present
+    private static final class ReactorOffload {
+        
+        static boolean isInNonBlockingThread() {
+            return Schedulers.isInNonBlockingThread();
+        }
+        
+        static void schedule(Runnable task) {
+            Schedulers.boundedElastic().schedule(task);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.smarttracker.product.config;
+
+import com.smarttracker.product.security.BCryptCostCalibrator;
+import com.smarttracker.product.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Password hashing shared by the servlet and reactive security stacks.
+ */
+@Configuration
+public class PasswordEncoderConfig {
+    
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password-strength:12}") int minStrength,
+            @Value("${app.security.hashing.max-strength:16}") int maxStrength,
+            @Value("${app.security.hashing.target-latency:250ms}") Duration targetLatency,
+            @Value("${app.security.hashing.threads:0}") int threads,
+            @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int strength = BCryptCostCalibrator.calibrate(targetLatency, minStrength, maxStrength);
+        
+        // Hashes are stored as {bcrypt}$2a$<cost>$...; legacy unprefixed hashes still match
+        // and are re-encoded on the next successful login
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        
+        // Hashing is CPU bound: default to one thread per core
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(
+                delegating, poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
+    }
+}
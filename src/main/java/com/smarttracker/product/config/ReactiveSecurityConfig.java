@@ -0,0 +1,89 @@
+package com.smarttracker.product.config;
+
+import com.smarttracker.product.repository.ReactiveUserRepository;
+import com.smarttracker.product.security.AuthMetrics;
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.ReactiveCustomUserDetailsService;
+import com.smarttracker.product.security.ReactiveJwtAuthenticationFilter;
+import com.smarttracker.product.security.TokenDenylist;
+import com.smarttracker.product.security.TokenVersionCache;
+import com.smarttracker.product.security.VerifiedTokenCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import java.util.List;
+
+/**
+ * WebFlux equivalent of {@link SecurityConfig}, active when the application
+ * runs as a reactive web application (the {@code reactive} profile). Same
+ * public paths, stateless JWT authentication and CORS policy.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+    
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         JwtUtil jwtUtil,
+                                                         VerifiedTokenCache verifiedTokenCache,
+                                                         TokenVersionCache tokenVersionCache,
+                                                         TokenDenylist tokenDenylist,
+                                                         ReactiveCustomUserDetailsService userDetailsService,
+                                                         ReactiveUserRepository userRepository,
+                                                         AuthMetrics authMetrics) {
+        ReactiveJwtAuthenticationFilter jwtAuthenticationFilter = new ReactiveJwtAuthenticationFilter(
+                jwtUtil, verifiedTokenCache, tokenVersionCache, tokenDenylist,
+                userDetailsService, userRepository, authMetrics);
+        
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            // Stateless: the security context lives only in the request's Reactor context
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers(
+                    "/api/v1/auth/**",
+                    "/api/health",
+                    "/v3/api-docs/**",
+                    "/swagger-ui/**",
+                    "/swagger-ui.html"
+                ).permitAll()
+                .anyExchange().authenticated()
+            )
+            // Same status the servlet chain answers with when form login and basic auth are off
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+            .addFilterAt(jwtAuthenticationFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .build();
+    }
+    
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:8080"));
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
+        configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("Authorization"));
+        
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(3600L);
+        
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
@@ -0,0 +1,49 @@
+package com.smarttracker.product.config;
+
+import com.smarttracker.product.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves {@code users_seq} past the highest existing user id on PostgreSQL.
+ * Databases created while {@code users.id} was an IDENTITY column get the
+ * sequence from {@code ddl-auto} starting at 1, and the first ids it handed
+ * out would collide with existing rows. Once the sequence is ahead of the
+ * table this does nothing, so it is safe on every start and on every node.
+ */
+@Component
+@Slf4j
+public class UserIdSequenceInitializer implements InitializingBean {
+    
+    // Only while the sequence trails the table; Hibernate's pooled ids never exceed last_value otherwise
+    private static final String ALIGN_SQL = "SELECT setval('" + User.ID_SEQUENCE + "', t.max_id) "
+            + "FROM (SELECT MAX(id) AS max_id FROM users) t, " + User.ID_SEQUENCE + " s "
+            + "WHERE t.max_id >= s.last_value";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // The EntityManagerFactory is injected so that schema update has created the sequence first
+    public UserIdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        
+        List<Long> aligned = jdbcTemplate.queryForList(ALIGN_SQL, Long.class);
+        if (!aligned.isEmpty()) {
+            log.info("Advanced {} to {} to follow existing user ids", User.ID_SEQUENCE, aligned.get(0));
+        }
+    }
+}
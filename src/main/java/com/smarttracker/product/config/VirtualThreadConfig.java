@@ -0,0 +1,57 @@
+package com.smarttracker.product.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true} on Java 21+. Spring
+ * Boot then runs Tomcat request handling, and with it the service layer, plus
+ * {@code @Scheduled} tasks on virtual threads. BCrypt keeps running on
+ * {@code BoundedPasswordEncoder}'s platform pool, since CPU-bound work gains
+ * nothing from virtual threads and needs a hard bound.
+ *
+ * <p>This adds a bulkhead in front of the connection pool and reports
+ * carrier pinning.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    
+    @Bean
+    public static BeanPostProcessor connectionBulkhead(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.virtual-threads.bulkhead.max-waiting:200}") int maxWaiting,
+            @Value("${app.virtual-threads.bulkhead.acquire-timeout:2s}") Duration acquireTimeout,
+            @Value("${app.virtual-threads.bulkhead.retry-after-seconds:1}") long retryAfterSeconds) {
+        
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                // One permit per pooled connection, so waiting happens here with a bound
+                int maxConnections = bean instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+                return new BulkheadDataSource(dataSource, maxConnections, maxWaiting, acquireTimeout,
+                        retryAfterSeconds, meterRegistry.getObject());
+            }
+        };
+    }
+    
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinning.threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(threshold, meterRegistry);
+    }
+}
@@ -0,0 +1,92 @@
+package com.smarttracker.product.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the JDK's {@code jdk.VirtualThreadPinned} JFR event in-process.
+ * A virtual thread is pinned when it blocks while its carrier cannot be
+ * released, typically blocking I/O inside a {@code synchronized} block, and
+ * every pinned thread takes a carrier out of the scheduler's small pool.
+ *
+ * <p>Every pinning longer than the threshold is recorded in the
+ * {@code jvm.threads.virtual.pinned} timer. The first occurrence per code
+ * location is logged with its stack, so new pinning sites show up in the logs
+ * without flooding them. This is the in-process equivalent of
+ * {@code -Djdk.tracePinnedThreads}.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.smarttracker.";
+    private static final int LOGGED_FRAMES = 12;
+    
+    private final Duration threshold;
+    private final Timer pinnedTimer;
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+    
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        
+        if (event.getStackTrace() == null) {
+            return;
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        String location = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("unknown");
+        
+        if (reportedLocations.add(location)) {
+            StringBuilder stack = new StringBuilder();
+            frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .forEach(frame -> stack.append(System.lineSeparator()).append("\tat ").append(format(frame)));
+            log.warn("Virtual thread pinned its carrier for {} ms at {}{}",
+                    event.getDuration().toMillis(), location, stack);
+        }
+    }
+    
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
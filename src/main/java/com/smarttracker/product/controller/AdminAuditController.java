@@ -0,0 +1,78 @@
+package com.smarttracker.product.controller;
+
+import com.smarttracker.product.audit.AuthAuditLog;
+import com.smarttracker.product.dto.ApiResponse;
+import com.smarttracker.product.dto.AuthAuditEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Read access to the authentication audit log. Restricted to the accounts
+ * listed in {@code app.security.admin-usernames}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/admin/audit")
+@Slf4j
+public class AdminAuditController {
+    
+    private final AuthAuditLog authAuditLog;
+    private final int maxResults;
+    
+    public AdminAuditController(AuthAuditLog authAuditLog,
+                                @Value("${app.audit.max-results:1000}") int maxResults) {
+        this.authAuditLog = authAuditLog;
+        this.maxResults = maxResults;
+    }
+    
+    /**
+     * The latest logins, failed logins, refreshes and logouts of one user,
+     * newest first. {@code from} and {@code to} are ISO-8601 instants and
+     * default to the whole log; to page back, pass the oldest returned
+     * timestamp as {@code to}. Failed logins are found under the username or
+     * email that was submitted.
+     *
+     * <p>Each instance writes its own log to its local {@code app.audit.directory},
+     * so only events recorded by the instance serving this request are
+     * returned. Behind a load balancer, query every instance (or ship the
+     * segment files to one place) for the complete history.
+     */
+    @GetMapping("/auth-events")
+    public ResponseEntity<ApiResponse<List<AuthAuditEvent>>> authEvents(
+            @RequestParam String username,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        if (limit < 1 || limit > maxResults) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxResults);
+        }
+        Instant start = from == null ? Instant.EPOCH : parseInstant("from", from);
+        Instant end = to == null ? Instant.now() : parseInstant("to", to);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        
+        List<AuthAuditEvent> events = authAuditLog.find(username, start, end, limit);
+        log.debug("Audit query for {} returned {} events", username, events.size());
+        return ResponseEntity.ok(ApiResponse.success("Audit events retrieved successfully", events));
+    }
+    
+    private static Instant parseInstant(String name, String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 instant, e.g. 2024-01-31T12:00:00Z");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.smarttracker.product.controller;
+
+import com.smarttracker.product.dto.ApiResponse;
+import com.smarttracker.product.dto.ProductPage;
+import com.smarttracker.product.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The whole product catalog across owners. Restricted to the accounts listed
+ * in {@code app.security.admin-usernames}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/admin/products")
+@RequiredArgsConstructor
+public class AdminProductController {
+    
+    private final ProductService productService;
+    
+    /**
+     * Lists every product in id order; pass the returned {@code nextCursor}
+     * to get the following page.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<ProductPage>> listProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        ProductPage page = productService.listAllProducts(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", page));
+    }
+}
@@ -0,0 +1,142 @@
+package com.smarttracker.product.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smarttracker.product.dto.ApiResponse;
+import com.smarttracker.product.dto.UserImportEvent;
+import com.smarttracker.product.dto.UserPage;
+import com.smarttracker.product.service.UserImportService;
+import com.smarttracker.product.service.UserListingService;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Administrative user operations: listing, export and bulk import. Restricted
+ * to the accounts listed in {@code app.security.admin-usernames}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/admin/users")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminUserController {
+    
+    private static final String TEXT_CSV = "text/csv";
+    
+    private final UserImportService userImportService;
+    private final UserListingService userListingService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Lists users a page at a time. {@code sort=id} pages oldest first and
+     * {@code sort=createdAt} newest first; pass the returned {@code nextCursor}
+     * to get the following page.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<UserPage>> listUsers(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        UserPage page = userListingService.listUsers(parseSort(sort), cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page));
+    }
+    
+    /**
+     * Streams every user, in id order, as a JSON array or as CSV.
+     */
+    @GetMapping("/export")
+    public void exportUsers(@RequestParam(defaultValue = "json") String format,
+                            HttpServletResponse response) throws IOException {
+        UserListingService.ExportFormat exportFormat = parseExportFormat(format);
+        boolean csv = exportFormat == UserListingService.ExportFormat.CSV;
+        
+        response.setContentType(csv ? TEXT_CSV + ";charset=UTF-8" : MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(csv ? "users.csv" : "users.json")
+                .build()
+                .toString());
+        try {
+            userListingService.exportUsers(exportFormat, response.getOutputStream());
+        } catch (RuntimeException e) {
+            // Rejected before anything was written: drop the export headers so the error is sent as JSON
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Bulk-creates users from a CSV file (header row naming {@code username},
+     * {@code email}, {@code password} and optionally {@code firstName} and
+     * {@code lastName}) or from NDJSON objects with the same fields. The body is
+     * read as it arrives and the response is an NDJSON stream of rejected rows,
+     * a progress line after each batch and a final summary.
+     */
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        log.info("User import started by {} ({})", request.getUserPrincipal().getName(), format);
+        
+        try {
+            userImportService.importUsers(request.getInputStream(), format, event -> write(response, event));
+        } catch (UncheckedIOException e) {
+            // The client went away; stop reading instead of importing the rest unobserved
+            throw e.getCause();
+        }
+    }
+    
+    private static UserListingService.Sort parseSort(String sort) {
+        return switch (sort) {
+            case "id" -> UserListingService.Sort.ID;
+            case "createdAt" -> UserListingService.Sort.CREATED_AT;
+            default -> throw new IllegalArgumentException("sort must be 'id' or 'createdAt'");
+        };
+    }
+    
+    private static UserListingService.ExportFormat parseExportFormat(String format) {
+        return switch (format.toLowerCase(Locale.ROOT)) {
+            case "json" -> UserListingService.ExportFormat.JSON;
+            case "csv" -> UserListingService.ExportFormat.CSV;
+            default -> throw new IllegalArgumentException("format must be 'json' or 'csv'");
+        };
+    }
+    
+    // The content type is set with the first event, so errors raised before it still get a JSON error body
+    private void write(HttpServletResponse response, UserImportEvent event) {
+        try {
+            if (response.getContentType() == null) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            }
+            ServletOutputStream out = response.getOutputStream();
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            // Rejections go out with the next progress line rather than one packet each
+            if (!UserImportEvent.REJECTED.equals(event.getType())) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
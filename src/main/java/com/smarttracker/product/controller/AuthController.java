@@ -1,13 +1,20 @@
 package com.smarttracker.product.controller;
 
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.SigningKeyRing;
 import com.smarttracker.product.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.Map;
 
 
@@ -17,6 +24,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
 @Slf4j
@@ -24,12 +32,17 @@ public class AuthController {
     
     private final UserService userService;
     private final AuthService authService;
+    private final JwtUtil jwtUtil;
+    private final SigningKeyRing signingKeyRing;
+    
+    @Value("${jwt.signing.jwks-max-age:15m}")
+    private Duration jwksMaxAge;
     
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<UserResponse>> register(
             @Valid @RequestBody RegisterRequest request) {
         
-        log.info("Registration request received for username: {}", request.getUsername());
+        log.debug("Registration request received for username: {}", request.getUsername());
         
         UserResponse userResponse = userService.registerUser(request);
         
@@ -89,7 +102,7 @@ public class AuthController {
     public ResponseEntity<ApiResponseDTO<LoginResponseDTO>> login(
             @Valid @RequestBody LoginRequestDTO request) {
         
-        log.info("Login request received for: {}", request.getUsernameOrEmail());
+        log.debug("Login request received for: {}", request.getUsernameOrEmail());
         
         LoginResponseDTO response = authService.authenticate(request);
         
@@ -105,7 +118,7 @@ public class AuthController {
     public ResponseEntity<ApiResponseDTO<LoginResponseDTO.Tokens>> refreshToken(
             @Valid @RequestBody RefreshTokenRequestDTO request) {
         
-        log.info("Refresh token request received");
+        log.debug("Refresh token request received");
         
         LoginResponseDTO.Tokens tokens = authService.refreshToken(request.getRefreshToken());
         
@@ -118,13 +131,13 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponseDTO<Void>> logout() {
+    public ResponseEntity<ApiResponseDTO<Void>> logout(HttpServletRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         if (authentication != null && authentication.isAuthenticated()) {
             String username = authentication.getName();
-            authService.logout(username);
-            log.info("User logged out: {}", username);
+            authService.logout(username, jwtUtil.resolveToken(request));
+            log.debug("User logged out: {}", username);
         }
         
         ApiResponseDTO<Void> response = ApiResponseDTO.success(
@@ -163,4 +176,18 @@ public class AuthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Public token verification keys as a JWK Set, for services that verify
+     * access tokens themselves. Returned as-is rather than wrapped in
+     * {@link ApiResponseDTO}, since JWKS clients expect the standard format.
+     * The cache lifetime must stay below {@code jwt.signing.publish-ahead}.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge).cachePublic())
+                .eTag(signingKeyRing.jwksVersion())
+                .body(signingKeyRing.jwks());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.smarttracker.product.controller;
+
+import com.smarttracker.product.dto.ApiResponse;
+import com.smarttracker.product.dto.ProductPage;
+import com.smarttracker.product.dto.ProductRequest;
+import com.smarttracker.product.dto.ProductResponse;
+import com.smarttracker.product.security.UserPrincipal;
+import com.smarttracker.product.service.ProductService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The signed-in user's products. Another user's product is reported as not found.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class ProductController {
+    
+    private final ProductService productService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<ProductResponse>> createProduct(
+            @AuthenticationPrincipal UserPrincipal user,
+            @Valid @RequestBody ProductRequest request) {
+        
+        ProductResponse product = productService.createProduct(user.getId(), request);
+        return new ResponseEntity<>(ApiResponse.success("Product created successfully", product), HttpStatus.CREATED);
+    }
+    
+    /**
+     * Lists the user's products, most recently updated first; pass the
+     * returned {@code nextCursor} to get the following page.
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<ProductPage>> listProducts(
+            @AuthenticationPrincipal UserPrincipal user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        ProductPage page = productService.listProducts(user.getId(), cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", page));
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<ProductResponse>> getProduct(
+            @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable Long id) {
+        
+        ProductResponse product = productService.getProduct(user.getId(), id);
+        return ResponseEntity.ok(ApiResponse.success("Product retrieved successfully", product));
+    }
+    
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<ProductResponse>> updateProduct(
+            @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable Long id,
+            @Valid @RequestBody ProductRequest request) {
+        
+        ProductResponse product = productService.updateProduct(user.getId(), id, request);
+        return ResponseEntity.ok(ApiResponse.success("Product updated successfully", product));
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteProduct(
+            @AuthenticationPrincipal UserPrincipal user,
+            @PathVariable Long id) {
+        
+        productService.deleteProduct(user.getId(), id);
+        return ResponseEntity.ok(ApiResponse.success("Product deleted successfully", null));
+    }
+}
@@ -0,0 +1,167 @@
+package com.smarttracker.product.controller;
+
+import com.smarttracker.product.dto.ApiResponse;
+import com.smarttracker.product.dto.ApiResponseDTO;
+import com.smarttracker.product.dto.LoginRequestDTO;
+import com.smarttracker.product.dto.LoginResponseDTO;
+import com.smarttracker.product.dto.RefreshTokenRequestDTO;
+import com.smarttracker.product.dto.RegisterRequest;
+import com.smarttracker.product.dto.UserResponseDTO;
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.SigningKeyRing;
+import com.smarttracker.product.service.ReactiveAuthService;
+import com.smarttracker.product.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The {@link AuthController} API on WebFlux, for the {@code reactive} profile.
+ * Same paths, request and response bodies and status codes.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveAuthController {
+    
+    private final ReactiveUserService userService;
+    private final ReactiveAuthService authService;
+    private final JwtUtil jwtUtil;
+    private final SigningKeyRing signingKeyRing;
+    
+    @Value("${jwt.signing.jwks-max-age:15m}")
+    private Duration jwksMaxAge;
+    
+    @PostMapping("/register")
+    public Mono<ResponseEntity<ApiResponse<UserResponseDTO>>> register(
+            @Valid @RequestBody RegisterRequest request) {
+        
+        log.debug("Registration request received for username: {}", request.getUsername());
+        
+        return userService.registerUser(request)
+                .map(userResponse -> new ResponseEntity<>(
+                        ApiResponse.success("User registered successfully", userResponse),
+                        HttpStatus.CREATED));
+    }
+    
+    @GetMapping("/check-username/{username}")
+    public Mono<ResponseEntity<ApiResponse<Boolean>>> checkUsernameAvailability(
+            @PathVariable String username) {
+        
+        return userService.existsByUsername(username)
+                .map(exists -> ResponseEntity.ok(ApiResponse.success(
+                        exists ? "Username already taken" : "Username available",
+                        !exists)));
+    }
+    
+    @GetMapping("/check-email/{email}")
+    public Mono<ResponseEntity<ApiResponse<Boolean>>> checkEmailAvailability(
+            @PathVariable String email) {
+        
+        return userService.existsByEmail(email)
+                .map(exists -> ResponseEntity.ok(ApiResponse.success(
+                        exists ? "Email already registered" : "Email available",
+                        !exists)));
+    }
+    
+    @PostMapping("/validate-password")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> validatePassword(
+            @RequestBody Map<String, String> request) {
+        
+        String password = request.get("password");
+        boolean isValid = password != null && password.length() >= 8;
+        
+        return ResponseEntity.ok(ApiResponse.success(
+                isValid ? "Password is valid" : "Password is too weak",
+                Map.of("isValid", isValid)));
+    }
+    
+    @PostMapping("/login")
+    public Mono<ResponseEntity<ApiResponseDTO<LoginResponseDTO>>> login(
+            @Valid @RequestBody LoginRequestDTO request) {
+        
+        log.debug("Login request received for: {}", request.getUsernameOrEmail());
+        
+        return authService.authenticate(request)
+                .map(response -> ResponseEntity.ok(ApiResponseDTO.success("Login successful", response)));
+    }
+    
+    @PostMapping("/refresh-token")
+    public Mono<ResponseEntity<ApiResponseDTO<LoginResponseDTO.Tokens>>> refreshToken(
+            @Valid @RequestBody RefreshTokenRequestDTO request) {
+        
+        log.debug("Refresh token request received");
+        
+        return authService.refreshToken(request.getRefreshToken())
+                .map(tokens -> ResponseEntity.ok(ApiResponseDTO.success("Token refreshed successfully", tokens)));
+    }
+    
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<ApiResponseDTO<Void>>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        
+        return currentAuthentication()
+                .flatMap(authentication -> {
+                    String username = authentication.getName();
+                    return authService.logout(username, jwtUtil.resolveToken(authorization))
+                            .doOnSuccess(done -> log.debug("User logged out: {}", username));
+                })
+                .then(Mono.fromSupplier(() -> {
+                    ApiResponseDTO<Void> response = ApiResponseDTO.success("Logout successful", null);
+                    return ResponseEntity.ok(response);
+                }));
+    }
+    
+    @GetMapping("/me")
+    public Mono<ResponseEntity<ApiResponseDTO<UserResponseDTO>>> getCurrentUser() {
+        return currentAuthentication()
+                .map(authentication -> {
+                    String username = authentication.getName();
+                    log.debug("Fetching current user: {}", username);
+                    
+                    UserResponseDTO userResponse = UserResponseDTO.builder()
+                            .username(username)
+                            .build();
+                    
+                    return ResponseEntity.ok(ApiResponseDTO.success(
+                            "Current user fetched successfully",
+                            userResponse));
+                })
+                .defaultIfEmpty(new ResponseEntity<>(
+                        ApiResponseDTO.error("User not authenticated", "UNAUTHENTICATED"),
+                        HttpStatus.UNAUTHORIZED));
+    }
+    
+    /**
+     * See {@link AuthController#jwks()}.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge).cachePublic())
+                .eTag(signingKeyRing.jwksVersion())
+                .body(signingKeyRing.jwks());
+    }
+    
+    private static Mono<Authentication> currentAuthentication() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated);
+    }
+}
@@ -0,0 +1,35 @@
+package com.smarttracker.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.smarttracker.product.security.AuthMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One authentication event read back from the audit log. Failed logins are
+ * recorded under the username or email the client sent and carry no user id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuthAuditEvent {
+    
+    // Persisted by ordinal in the audit segments; add new values at the end
+    public enum Type {
+        LOGIN,
+        REFRESH,
+        LOGOUT
+    }
+    
+    private Instant timestamp;
+    private Type type;
+    private AuthMetrics.Outcome outcome;
+    private Long userId;
+    private String username;
+}
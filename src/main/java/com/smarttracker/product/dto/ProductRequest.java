@@ -0,0 +1,45 @@
+package com.smarttracker.product.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of product create and update requests. An update replaces every field
+ * and must carry the {@code version} the client last read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRequest {
+    
+    @NotBlank(message = "Name is required")
+    @Size(max = 200, message = "Name must not exceed 200 characters")
+    private String name;
+    
+    @Size(max = 2000, message = "Description must not exceed 2000 characters")
+    private String description;
+    
+    @Size(max = 2048, message = "URL must not exceed 2048 characters")
+    @Pattern(regexp = "^https?://\\S+$", message = "URL must be an http or https address")
+    private String url;
+    
+    @DecimalMin(value = "0.00", message = "Price must not be negative")
+    @Digits(integer = 10, fraction = 2, message = "Price must have at most 10 digits and 2 decimals")
+    private BigDecimal price;
+    
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be an ISO 4217 code such as USD")
+    private String currency;
+    
+    // Ignored on create
+    private Long version;
+}
@@ -0,0 +1,33 @@
+package com.smarttracker.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A product as returned by the API. Instances held by the product cache are
+ * shared between requests and must not be modified.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductResponse {
+    
+    private Long id;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private String url;
+    private BigDecimal price;
+    private String currency;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
+}
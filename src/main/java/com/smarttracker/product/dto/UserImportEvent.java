@@ -0,0 +1,38 @@
+package com.smarttracker.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON stream returned by the bulk user import: a rejected
+ * row, a progress report after each batch, or the final summary.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportEvent {
+    
+    public static final String REJECTED = "rejected";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+    
+    private String type;
+    
+    // Rejected rows: 1-based line in the uploaded file
+    private Long line;
+    private String username;
+    private String errorCode;
+    private String message;
+    
+    // Progress and summary
+    private Long processed;
+    private Long imported;
+    private Long skipped;
+    private Long failed;
+    private Long elapsedMillis;
+}
@@ -3,13 +3,17 @@ package com.smarttracker.product.exception;
 import com.smarttracker.product.dto.ApiResponseDTO;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,12 +22,13 @@ import java.util.Map;
 @Slf4j
 public class GlobalExceptionHandler {
     
-    @ExceptionHandler(MethodArgumentNotValidException.class)
+    // WebExchangeBindException is the WebFlux equivalent, raised in the reactive profile
+    @ExceptionHandler({MethodArgumentNotValidException.class, WebExchangeBindException.class})
     public ResponseEntity<ApiResponseDTO<Map<String, String>>> handleValidationExceptions(
-            MethodArgumentNotValidException ex) {
+            BindingResult bindingResult) {
         
         Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach((error) -> {
+        bindingResult.getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
@@ -61,6 +66,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
     
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ApiResponseDTO<String>> handleResourceNotFoundException(
+            ResourceNotFoundException ex) {
+        
+        ApiResponseDTO<String> response = ApiResponseDTO.error(
+                ex.getMessage(), 
+                ex.getErrorCode()
+        );
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+    
+    // A @Version check failed: someone else changed the row since it was read
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponseDTO<String>> handleOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException ex) {
+        
+        ApiResponseDTO<String> response = ApiResponseDTO.error(
+                "The resource was modified concurrently; reload it and retry", 
+                "CONCURRENT_MODIFICATION"
+        );
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+    
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ApiResponseDTO<String>> handleBadCredentialsException(
             BadCredentialsException ex) {
@@ -72,6 +100,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
     
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponseDTO<String>> handleServiceBusyException(
+            ServiceBusyException ex) {
+        
+        ApiResponseDTO<String> response = ApiResponseDTO.error(
+                ex.getMessage(), 
+                ex.getErrorCode()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponseDTO<String>> handleIllegalArgumentException(
             IllegalArgumentException ex) {
@@ -85,6 +126,12 @@ public class GlobalExceptionHandler {
     
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponseDTO<String>> handleGenericException(Exception ex) {
+        // e.g. the connection bulkhead rejecting a caller while a transaction is opened
+        ServiceBusyException busy = ServiceBusyException.findIn(ex);
+        if (busy != null) {
+            return handleServiceBusyException(busy);
+        }
+        
         log.error("Unexpected error occurred", ex);
         
         ApiResponseDTO<String> response = ApiResponseDTO.error(
@@ -93,11 +140,11 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-
+    
     @ExceptionHandler(AuthenticationFailedException.class)
      public ResponseEntity<ApiResponseDTO<String>> handleAuthenticationFailedException(
         AuthenticationFailedException ex) {
-
+     
      ApiResponseDTO<String> response = ApiResponseDTO.error(
         ex.getMessage(), 
         ex.getErrorCode()
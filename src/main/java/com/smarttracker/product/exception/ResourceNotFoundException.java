@@ -0,0 +1,14 @@
+package com.smarttracker.product.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ResourceNotFoundException extends RuntimeException {
+    
+    private final String errorCode;
+    
+    public ResourceNotFoundException(String errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+}
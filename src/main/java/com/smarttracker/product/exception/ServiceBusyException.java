@@ -0,0 +1,32 @@
+package com.smarttracker.product.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    
+    private final String errorCode;
+    private final long retryAfterSeconds;
+    
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.errorCode = "SERVICE_BUSY";
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    /**
+     * Returns the {@code ServiceBusyException} in the cause chain, if any. Frameworks
+     * wrap it when it is raised below them, e.g. while opening a transaction.
+     */
+    public static ServiceBusyException findIn(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof ServiceBusyException busy) {
+                return busy;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+}
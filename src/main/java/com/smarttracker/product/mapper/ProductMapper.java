@@ -0,0 +1,37 @@
+package com.smarttracker.product.mapper;
+
+import com.smarttracker.product.dto.ProductRequest;
+import com.smarttracker.product.dto.ProductResponse;
+import com.smarttracker.product.model.Product;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper {
+    
+    public ProductResponse toDTO(Product product) {
+        if (product == null) {
+            return null;
+        }
+        
+        return ProductResponse.builder()
+                .id(product.getId())
+                .ownerId(product.getUserId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .url(product.getUrl())
+                .price(product.getPrice())
+                .currency(product.getCurrency())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .version(product.getVersion())
+                .build();
+    }
+    
+    public void copy(ProductRequest request, Product product) {
+        product.setName(request.getName().trim());
+        product.setDescription(request.getDescription());
+        product.setUrl(request.getUrl());
+        product.setPrice(request.getPrice());
+        product.setCurrency(request.getCurrency());
+    }
+}
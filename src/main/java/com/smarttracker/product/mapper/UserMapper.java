@@ -2,8 +2,11 @@ package com.smarttracker.product.mapper;
 
 import com.smarttracker.product.dto.UserResponse;
 import com.smarttracker.product.model.User;
+import com.smarttracker.product.security.UserPrincipal;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+
 @Component
 public class UserMapper {
     
@@ -22,4 +25,20 @@ public class UserMapper {
                 .lastLogin(user.getLastLogin())
                 .build();
     }
+    
+    public UserResponse toDTO(UserPrincipal principal, LocalDateTime lastLogin) {
+        if (principal == null) {
+            return null;
+        }
+        
+        return UserResponse.builder()
+                .id(principal.getId())
+                .username(principal.getUsername())
+                .email(principal.getEmail())
+                .firstName(principal.getFirstName())
+                .lastName(principal.getLastName())
+                .createdAt(principal.getCreatedAt())
+                .lastLogin(lastLogin)
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.smarttracker.product.model;
+
+import com.smarttracker.product.service.ProductCacheEvictionListener;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "products", indexes = {
+        // Owner-scoped listing, most recently updated first, with the id as tie-breaker
+        @Index(name = "idx_products_user_updated_at", columnList = "user_id, updated_at, id")
+})
+@EntityListeners(ProductCacheEvictionListener.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Product {
+    
+    public static final String ID_SEQUENCE = "products_seq";
+    
+    // Pooled sequence ids, as for users, so that inserts can be JDBC-batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = 50)
+    private Long id;
+    
+    // The owner's id rather than a User association: reads never need the owner row
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+    
+    @NotBlank(message = "Name is required")
+    @Size(max = 200, message = "Name must not exceed 200 characters")
+    @Column(nullable = false, length = 200)
+    private String name;
+    
+    @Size(max = 2000, message = "Description must not exceed 2000 characters")
+    @Column(length = 2000)
+    private String description;
+    
+    @Size(max = 2048, message = "URL must not exceed 2048 characters")
+    @Column(length = 2048)
+    private String url;
+    
+    @Column(precision = 12, scale = 2)
+    private BigDecimal price;
+    
+    @Column(length = 3)
+    private String currency;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Concurrent updates of one product fail instead of overwriting each other
+    @Version
+    @Builder.Default
+    @Column(nullable = false)
+    private long version = 0;
+}
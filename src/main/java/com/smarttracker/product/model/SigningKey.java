@@ -0,0 +1,67 @@
+package com.smarttracker.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One asymmetric token signing key. The id is the JWS {@code kid}. The
+ * private key is stored encrypted (AES-GCM) and the public key as X.509
+ * SubjectPublicKeyInfo. A key signs from {@code activatesAt} until the next
+ * key activates, and stays published for verification until every token it
+ * signed has expired.
+ */
+@Entity
+@Table(name = "signing_keys", indexes = {
+        @Index(name = "idx_signing_keys_activates_at", columnList = "activates_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningKey implements Persistable<String> {
+    
+    @Id
+    @Column(length = 36)
+    private String id;
+    
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+    
+    @Column(name = "public_key", nullable = false, length = 512)
+    private byte[] publicKey;
+    
+    @ToString.Exclude
+    @Column(name = "private_key", nullable = false, length = 512)
+    private byte[] privateKey;
+    
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Ids are assigned by the application; this lets save() INSERT directly instead of merging
+    @Transient
+    @Builder.Default
+    private boolean isNew = true;
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
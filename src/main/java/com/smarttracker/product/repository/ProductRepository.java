@@ -0,0 +1,31 @@
+package com.smarttracker.product.repository;
+
+import com.smarttracker.product.model.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+    
+    // Owner's products, most recently updated first; both are range scans of idx_products_user_updated_at
+    List<Product> findByUserIdOrderByUpdatedAtDescIdDesc(Long userId, Limit limit);
+    
+    @Query("SELECT p FROM Product p WHERE p.userId = :userId AND (p.updatedAt, p.id) < (:updatedAt, :id) " +
+           "ORDER BY p.updatedAt DESC, p.id DESC")
+    List<Product> findOwnerPageBefore(@Param("userId") Long userId,
+                                      @Param("updatedAt") LocalDateTime updatedAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+    
+    // Whole catalog in id order, keyset-paged on the primary key
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+    
+    @Query("SELECT p FROM Product p WHERE p.id > :id ORDER BY p.id")
+    List<Product> findPageAfterId(@Param("id") Long id, Limit limit);
+}
@@ -0,0 +1,179 @@
+package com.smarttracker.product.repository;
+
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.model.User;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.pool.PoolAcquirePendingLimitException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking access to the {@code users} table for the reactive profile,
+ * issuing the same statements as the {@link UserRepository} methods it
+ * mirrors. The schema remains owned by JPA. Writes made here bypass the JPA
+ * entity listeners, so callers evict cached principals themselves.
+ *
+ * <p>A caller that cannot get a pooled connection within
+ * {@code spring.r2dbc.pool.max-acquire-time} gets a {@link ServiceBusyException}
+ * (503 + Retry-After) rather than a server error.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+    
+    private static final String USER_COLUMNS = "id, username, email, password, first_name, last_name, enabled, "
+            + "account_non_expired, credentials_non_expired, account_non_locked, created_at, updated_at, "
+            + "last_login, token_version";
+    
+    private final DatabaseClient databaseClient;
+    private final long retryAfterSeconds;
+    
+    public ReactiveUserRepository(DatabaseClient databaseClient,
+                                  @Value("${app.reactive.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.databaseClient = databaseClient;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    /**
+     * See {@link UserRepository#findByUsernameOrEmail}; the value must be lower-case.
+     */
+    public Mono<User> findByUsernameOrEmail(String usernameOrEmail) {
+        return guard(databaseClient.sql("SELECT " + USER_COLUMNS + " FROM users "
+                        + "WHERE username = :username OR email = :email")
+                .bind("username", usernameOrEmail)
+                .bind("email", usernameOrEmail)
+                .map(ReactiveUserRepository::toUser)
+                .one());
+    }
+    
+    public Mono<Integer> findTokenVersionById(Long id) {
+        return guard(databaseClient.sql("SELECT token_version FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("token_version", Integer.class))
+                .one());
+    }
+    
+    // Columns are stored lower-case, so only the parameter is lowered and the unique index is used
+    public Mono<Boolean> existsByUsernameIgnoreCase(String username) {
+        return exists("SELECT COUNT(*) FROM users WHERE username = LOWER(:value)", username);
+    }
+    
+    public Mono<Boolean> existsByEmailIgnoreCase(String email) {
+        return exists("SELECT COUNT(*) FROM users WHERE email = LOWER(:value)", email);
+    }
+    
+    /**
+     * Inserts a new user with lower-cased identifiers and sets its generated id
+     * and timestamps. A duplicate username or email fails with
+     * {@code DataIntegrityViolationException} naming the violated constraint.
+     *
+     * <p>The id is the sequence value itself. Hibernate treats each value as the
+     * top of a block of 50 (see the id mapping on {@link User}), so no JPA node
+     * hands it out; the 49 ids below it are left unused.
+     */
+    public Mono<User> insert(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("INSERT INTO users "
+                        + "(id, username, email, password, first_name, last_name, enabled, account_non_expired, "
+                        + "credentials_non_expired, account_non_locked, created_at, updated_at, token_version) "
+                        + "VALUES (nextval('" + User.ID_SEQUENCE + "'), :username, :email, :password, :firstName, "
+                        + ":lastName, :enabled, :accountNonExpired, :credentialsNonExpired, :accountNonLocked, "
+                        + ":createdAt, :updatedAt, :tokenVersion)")
+                .bind("username", user.getUsername())
+                .bind("email", user.getEmail())
+                .bind("password", user.getPassword())
+                .bind("enabled", user.isEnabled())
+                .bind("accountNonExpired", user.isAccountNonExpired())
+                .bind("credentialsNonExpired", user.isCredentialsNonExpired())
+                .bind("accountNonLocked", user.isAccountNonLocked())
+                .bind("createdAt", now)
+                .bind("updatedAt", now)
+                .bind("tokenVersion", user.getTokenVersion());
+        insert = bindNullable(insert, "firstName", user.getFirstName());
+        insert = bindNullable(insert, "lastName", user.getLastName());
+        
+        return guard(insert.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    user.setId(id);
+                    return user;
+                }));
+    }
+    
+    /**
+     * Replaces the stored password hash if it is still {@code oldPassword},
+     * as {@code UserRepository.updatePasswordIfUnchanged} does over JPA.
+     *
+     * @return the number of rows updated: 0 if the password changed meanwhile
+     */
+    public Mono<Long> updatePasswordIfUnchanged(Long id, String oldPassword, String newPassword) {
+        return guard(databaseClient.sql("UPDATE users SET password = :password, updated_at = :updatedAt "
+                        + "WHERE id = :id AND password = :oldPassword")
+                .bind("password", newPassword)
+                .bind("updatedAt", LocalDateTime.now())
+                .bind("id", id)
+                .bind("oldPassword", oldPassword)
+                .fetch()
+                .rowsUpdated());
+    }
+    
+    private Mono<Boolean> exists(String sql, String value) {
+        return guard(databaseClient.sql(sql)
+                .bind("value", value)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0));
+    }
+    
+    private <T> Mono<T> guard(Mono<T> query) {
+        return query.onErrorMap(ReactiveUserRepository::isPoolExhausted,
+                e -> new ServiceBusyException("Server is busy, please retry shortly", retryAfterSeconds));
+    }
+    
+    // Acquire timeouts surface as R2dbcTimeoutException, a full wait queue as PoolAcquirePendingLimitException
+    private static boolean isPoolExhausted(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof R2dbcTimeoutException || t instanceof PoolAcquirePendingLimitException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+    
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                  String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+    
+    private static User toUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .username(row.get("username", String.class))
+                .email(row.get("email", String.class))
+                .password(row.get("password", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .enabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                .accountNonExpired(Boolean.TRUE.equals(row.get("account_non_expired", Boolean.class)))
+                .credentialsNonExpired(Boolean.TRUE.equals(row.get("credentials_non_expired", Boolean.class)))
+                .accountNonLocked(Boolean.TRUE.equals(row.get("account_non_locked", Boolean.class)))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .lastLogin(row.get("last_login", LocalDateTime.class))
+                .tokenVersion(row.get("token_version", Integer.class))
+                .build();
+    }
+}
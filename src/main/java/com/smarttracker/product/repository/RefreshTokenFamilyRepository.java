@@ -0,0 +1,41 @@
+package com.smarttracker.product.repository;
+
+import com.smarttracker.product.model.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+    
+    /**
+     * Compare-and-set rotation: succeeds only if {@code currentTokenId} is
+     * still the token being presented, so two concurrent refreshes with the
+     * same token cannot both win.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.currentTokenId = :newTokenId, f.expiresAt = :expiresAt, " +
+           "f.rotatedAt = :rotatedAt " +
+           "WHERE f.id = :id AND f.currentTokenId = :presentedTokenId AND f.revoked = false")
+    int rotate(@Param("id") String id,
+               @Param("presentedTokenId") String presentedTokenId,
+               @Param("newTokenId") String newTokenId,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("rotatedAt") LocalDateTime rotatedAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.id = :id")
+    int revoke(@Param("id") String id);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.smarttracker.product.repository;
+
+import com.smarttracker.product.model.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+    
+    List<SigningKey> findAllByOrderByActivatesAtAsc();
+}
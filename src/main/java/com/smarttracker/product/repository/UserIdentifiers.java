@@ -0,0 +1,11 @@
+package com.smarttracker.product.repository;
+
+/**
+ * Read-only projection of the two login identifiers of a user.
+ */
+public interface UserIdentifiers {
+    
+    String getUsername();
+    
+    String getEmail();
+}
@@ -1,12 +1,21 @@
 package com.smarttracker.product.repository;
 
 import com.smarttracker.product.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -15,15 +24,86 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByEmail(String email);
     
+    /**
+     * Resolves a login identifier in one statement served by the unique
+     * indexes on {@code username} and {@code email}. Stored values are
+     * lower-case, so callers must pass a lower-cased value. Usernames cannot
+     * contain '@', so at most one row can match.
+     */
+    @Query("SELECT u FROM User u WHERE u.username = :usernameOrEmail OR u.email = :usernameOrEmail")
+    Optional<User> findByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail);
+    
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
     
+    // Columns are stored lower-case, so only the parameter is lowered and the unique index is used
     @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END " +
-           "FROM User u WHERE LOWER(u.username) = LOWER(:username)")
+           "FROM User u WHERE u.username = LOWER(:username)")
     boolean existsByUsernameIgnoreCase(@Param("username") String username);
     
     @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END " +
-           "FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+           "FROM User u WHERE u.email = LOWER(:email)")
     boolean existsByEmailIgnoreCase(@Param("email") String email);
+    
+    // Forward-only read of the identifiers only; callers must hold a read-only transaction and close the stream
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.username AS username, u.email AS email FROM User u")
+    Stream<UserIdentifiers> streamAllIdentifiers();
+    
+    // Which of the given values are taken, in one statement over both unique indexes; values must be lower-case
+    @Query("SELECT u.username AS username, u.email AS email FROM User u " +
+           "WHERE u.username IN :usernames OR u.email IN :emails")
+    List<UserIdentifiers> findIdentifiersIn(@Param("usernames") Collection<String> usernames,
+                                            @Param("emails") Collection<String> emails);
+    
+    // Keyset pages: each page continues after the last row of the previous one, so no OFFSET scan
+    List<User> findAllByOrderByIdAsc(Limit limit);
+    
+    @Query("SELECT u FROM User u WHERE u.id > :id ORDER BY u.id")
+    List<User> findPageAfterId(@Param("id") Long id, Limit limit);
+    
+    List<User> findAllByOrderByCreatedAtDescIdDesc(Limit limit);
+    
+    @Query("SELECT u FROM User u WHERE (u.createdAt, u.id) < (:createdAt, :id) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findPageBeforeCreatedAt(@Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Limit limit);
+    
+    // Forward-only cursor at the configured fetch size; callers must hold a read-only
+    // transaction, close the stream and detach each user once written
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAllOrderById();
+    
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+    
+    /**
+     * Bumps the token version in a single statement, so concurrent revocations
+     * never lose an increment. Pending changes are flushed first so they cannot
+     * be written over the new version later. Bypasses the entity listener, so
+     * callers evict the cached principal and version.
+     *
+     * @return 1 if the user exists, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+    
+    /**
+     * Replaces the password hash only if it is still the one that was just
+     * verified, so a concurrent password change is never overwritten with the
+     * old password. Touches no other column but {@code updated_at}. Bypasses
+     * the entity listener, so callers evict the cached principal when a row
+     * was updated.
+     *
+     * @return 1 if the hash was replaced, 0 if it had changed meanwhile
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword, u.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE u.id = :id AND u.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
 }
\ No newline at end of file
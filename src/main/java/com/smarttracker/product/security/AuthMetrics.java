@@ -0,0 +1,200 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.exception.AuthenticationFailedException;
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.util.CacheLoads;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for the authentication pipeline.
+ *
+ * <p>Every meter is registered up front and held in a field, so recording on
+ * the request path is a {@code System.nanoTime()} pair and a few atomic adds,
+ * with no registry lookups or tag allocation. Tag values come from the fixed
+ * enums below, which keeps cardinality constant. Timers also count, so each
+ * {@code outcome} tag doubles as an outcome counter.
+ *
+ * <ul>
+ *   <li>{@code security.token.verify{outcome}}: signature check and parse (verified-token cache misses only)</li>
+ *   <li>{@code security.token.sign{type}}: access and refresh token signing</li>
+ *   <li>{@code security.user.lookup{source}}: principal lookup, served from the cache, loaded from the
+ *       database, or {@code in-flight} (waited for another request's load of the same user)</li>
+ *   <li>{@code security.request.authentication{outcome}}: bearer tokens seen by the filter</li>
+ *   <li>{@code auth.login{outcome}} and {@code auth.login.stage{stage}}: login end to end and per stage</li>
+ *   <li>{@code auth.token.refresh{outcome}}: refresh token rotation</li>
+ *   <li>{@code auth.register{outcome}}: registration, including the password hash</li>
+ * </ul>
+ * Password hashing is timed by {@link BoundedPasswordEncoder}
+ * ({@code security.password.hash*}) and the last-login write by
+ * {@code LastLoginRecorder} ({@code users.last.login.flush}).
+ */
+@Component
+public class AuthMetrics {
+    
+    // Persisted by ordinal in the auth audit log; add new values at the end
+    public enum Outcome {
+        SUCCESS, BAD_CREDENTIALS, EXPIRED, MALFORMED, INVALID_SIGNATURE, REVOKED, REJECTED, DUPLICATE, BUSY, ERROR;
+        
+        private final String tag = name().toLowerCase();
+        
+        /**
+         * Maps an exception raised while authenticating to its outcome.
+         */
+        public static Outcome of(Throwable e) {
+            if (e instanceof ExpiredJwtException) {
+                return EXPIRED;
+            }
+            if (e instanceof io.jsonwebtoken.security.SecurityException) {
+                return INVALID_SIGNATURE;
+            }
+            if (e instanceof JwtException || e instanceof IllegalArgumentException) {
+                return MALFORMED;
+            }
+            if (e instanceof BadCredentialsException) {
+                return BAD_CREDENTIALS;
+            }
+            if (e instanceof UsernameNotFoundException
+                    || e instanceof AccountStatusException
+                    || e instanceof AuthenticationFailedException) {
+                return REJECTED;
+            }
+            if (ServiceBusyException.findIn(e) != null) {
+                return BUSY;
+            }
+            return ERROR;
+        }
+    }
+    
+    public enum TokenType {
+        ACCESS, REFRESH
+    }
+    
+    public enum LoginStage {
+        /** User lookup and password verification. */
+        AUTHENTICATE,
+        /** Refresh token family insert and signing both tokens. */
+        ISSUE_TOKENS,
+        /** Buffering the last-login timestamp. */
+        RECORD_LAST_LOGIN
+    }
+    
+    private final Map<Outcome, Timer> tokenVerify;
+    private final Map<TokenType, Timer> tokenSign = new EnumMap<>(TokenType.class);
+    private final Timer userLookupCache;
+    private final Timer userLookupDatabase;
+    private final Timer userLookupInFlight;
+    private final Map<Outcome, Counter> requestAuthentication = new EnumMap<>(Outcome.class);
+    private final Map<Outcome, Timer> login;
+    private final Map<LoginStage, Timer> loginStage = new EnumMap<>(LoginStage.class);
+    private final Map<Outcome, Timer> refresh;
+    private final Map<Outcome, Timer> register;
+    
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.tokenVerify = outcomeTimers(meterRegistry, "security.token.verify",
+                "Time to verify a token signature and parse its claims",
+                Outcome.SUCCESS, Outcome.EXPIRED, Outcome.MALFORMED, Outcome.INVALID_SIGNATURE, Outcome.ERROR);
+        for (TokenType type : TokenType.values()) {
+            tokenSign.put(type, Timer.builder("security.token.sign")
+                    .description("Time to build and sign a token")
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.userLookupCache = userLookupTimer(meterRegistry, "cache");
+        this.userLookupDatabase = userLookupTimer(meterRegistry, "database");
+        this.userLookupInFlight = userLookupTimer(meterRegistry, "in-flight");
+        for (Outcome outcome : new Outcome[] {Outcome.SUCCESS, Outcome.EXPIRED, Outcome.MALFORMED,
+                Outcome.INVALID_SIGNATURE, Outcome.REVOKED, Outcome.REJECTED, Outcome.ERROR}) {
+            requestAuthentication.put(outcome, Counter.builder("security.request.authentication")
+                    .description("Bearer tokens presented to the authentication filter")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+        this.login = outcomeTimers(meterRegistry, "auth.login", "Login end to end",
+                Outcome.SUCCESS, Outcome.BAD_CREDENTIALS, Outcome.REJECTED, Outcome.BUSY, Outcome.ERROR);
+        for (LoginStage stage : LoginStage.values()) {
+            loginStage.put(stage, Timer.builder("auth.login.stage")
+                    .description("Time spent in one stage of a successful login")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.refresh = outcomeTimers(meterRegistry, "auth.token.refresh", "Refresh token rotation end to end",
+                Outcome.SUCCESS, Outcome.EXPIRED, Outcome.MALFORMED, Outcome.INVALID_SIGNATURE,
+                Outcome.REJECTED, Outcome.ERROR);
+        this.register = outcomeTimers(meterRegistry, "auth.register", "Registration end to end",
+                Outcome.SUCCESS, Outcome.DUPLICATE, Outcome.REJECTED, Outcome.BUSY, Outcome.ERROR);
+    }
+    
+    public void recordTokenVerification(Outcome outcome, long nanos) {
+        record(tokenVerify, outcome, nanos);
+    }
+    
+    public void recordTokenSigning(TokenType type, long nanos) {
+        tokenSign.get(type).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * @param source how the principal was obtained, or {@code null} if the cache
+     *               failed before that was known (recorded as a database lookup)
+     */
+    public void recordUserLookup(CacheLoads.Source source, long nanos) {
+        Timer timer = source == CacheLoads.Source.CACHED ? userLookupCache
+                : source == CacheLoads.Source.AWAITED ? userLookupInFlight
+                : userLookupDatabase;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void countRequestAuthentication(Outcome outcome) {
+        requestAuthentication.getOrDefault(outcome, requestAuthentication.get(Outcome.ERROR)).increment();
+    }
+    
+    public void recordLogin(Outcome outcome, long nanos) {
+        record(login, outcome, nanos);
+    }
+    
+    public void recordLoginStage(LoginStage stage, long nanos) {
+        loginStage.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordRefresh(Outcome outcome, long nanos) {
+        record(refresh, outcome, nanos);
+    }
+    
+    public void recordRegistration(Outcome outcome, long nanos) {
+        record(register, outcome, nanos);
+    }
+    
+    private static void record(Map<Outcome, Timer> timers, Outcome outcome, long nanos) {
+        timers.getOrDefault(outcome, timers.get(Outcome.ERROR)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private static Map<Outcome, Timer> outcomeTimers(MeterRegistry meterRegistry, String name,
+                                                     String description, Outcome... outcomes) {
+        Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : outcomes) {
+            timers.put(outcome, Timer.builder(name)
+                    .description(description)
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+    
+    private static Timer userLookupTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("security.user.lookup")
+                .description("Time to resolve a user principal, by where it came from")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,52 @@
+package com.smarttracker.product.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost factor from a target hashing latency measured on the
+ * current hardware. Each cost step doubles the work, so the minimum cost is
+ * timed once and the largest cost whose extrapolated time fits the target
+ * is chosen. The result is never below the configured minimum.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+    
+    private static final String SAMPLE_PASSWORD = "calibration-Sample-1";
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 3;
+    
+    private BCryptCostCalibrator() {
+    }
+    
+    public static int calibrate(Duration targetLatency, int minCost, int maxCost) {
+        if (targetLatency.isZero() || targetLatency.isNegative()) {
+            return minCost;
+        }
+        
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minCost);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            encoder.encode(SAMPLE_PASSWORD);
+        }
+        
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        
+        int cost = minCost;
+        long estimate = best;
+        while (cost < maxCost && estimate * 2 <= targetLatency.toNanos()) {
+            cost++;
+            estimate *= 2;
+        }
+        
+        log.info("BCrypt calibrated: cost {} took {} ms, selected cost {} (~{} ms, target {} ms)",
+                minCost, best / 1_000_000, cost, estimate / 1_000_000, targetLatency.toMillis());
+        return cost;
+    }
+}
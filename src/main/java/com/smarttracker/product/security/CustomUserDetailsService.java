@@ -2,46 +2,126 @@ package com.smarttracker.product.security;
 
 import com.smarttracker.product.model.User;
 import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.util.CacheLoads;
+import com.smarttracker.product.util.LogThrottle;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.Locale;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    
+    // Every request with a token for a disabled or locked user ends here; log a sample
+    private static final LogThrottle ACCOUNT_STATUS_LOG = new LogThrottle(10, Duration.ofSeconds(10));
     
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final AuthMetrics authMetrics;
+    private final UserCacheEvictionListener cacheEvictionListener;
     
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         log.debug("Attempting to load user: {}", usernameOrEmail);
         
-        // Try to find by username or email
-        User user = userRepository.findByUsername(usernameOrEmail)
-                .or(() -> userRepository.findByEmail(usernameOrEmail))
-                .orElseThrow(() -> {
-                    log.warn("User not found with username/email: {}", usernameOrEmail);
-                    return new UsernameNotFoundException(
-                            "User not found with username or email: " + usernameOrEmail);
-                });
+        // Usernames and emails are stored lower-case; normalizing here also shares cache entries
+        String lookupKey = usernameOrEmail.toLowerCase(Locale.ROOT);
+        
+        // Served from the principal cache; only misses reach the database
+        long start = System.nanoTime();
+        CacheLoads.Source[] source = new CacheLoads.Source[1];
+        UserPrincipal user;
+        try {
+            user = userPrincipalCache.get(lookupKey, this::loadPrincipal, s -> source[0] = s);
+        } finally {
+            authMetrics.recordUserLookup(source[0], System.nanoTime() - start);
+        }
         
+        checkUsable(user, usernameOrEmail);
+        
+        log.debug("User loaded successfully: {}", usernameOrEmail);
+        return user;
+    }
+    
+    /**
+     * Loads a principal by id, for opaque tokens, which carry no username.
+     * Shares the principal cache and its eviction with the username lookup.
+     */
+    public UserPrincipal loadUserById(Long id) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        CacheLoads.Source[] source = new CacheLoads.Source[1];
+        UserPrincipal user;
+        try {
+            user = userPrincipalCache.get(UserPrincipalCache.idKey(id),
+                    key -> UserPrincipal.from(userRepository.findById(id)
+                            .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id))),
+                    s -> source[0] = s);
+        } finally {
+            authMetrics.recordUserLookup(source[0], System.nanoTime() - start);
+        }
+        
+        checkUsable(user, user.getUsername());
+        return user;
+    }
+    
+    static void checkUsable(UserPrincipal user, String usernameOrEmail) {
         if (!user.isEnabled()) {
-            log.warn("User account is disabled: {}", usernameOrEmail);
+            logAccountStatus("User account is disabled: {}{}", usernameOrEmail);
             throw new UsernameNotFoundException("User account is disabled");
         }
         
         if (!user.isAccountNonLocked()) {
-            log.warn("User account is locked: {}", usernameOrEmail);
+            logAccountStatus("User account is locked: {}{}", usernameOrEmail);
             throw new UsernameNotFoundException("User account is locked");
         }
+    }
+    
+    private static void logAccountStatus(String message, String usernameOrEmail) {
+        long suppressed = ACCOUNT_STATUS_LOG.tryAcquire();
+        if (suppressed >= 0) {
+            log.warn(message, usernameOrEmail, LogThrottle.suppressedNote(suppressed));
+        }
+    }
+    
+    /**
+     * Called by {@code DaoAuthenticationProvider} after a successful login when
+     * the stored hash uses an outdated algorithm or cost. Only the password
+     * column is written, and only while it still holds the hash that was
+     * verified: if the password was changed meanwhile, the rehash is dropped.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        UserPrincipal user = (UserPrincipal) userDetails;
+        if (userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), newPassword) == 0) {
+            log.debug("Skipped password rehash for user {}: the password changed meanwhile", user.getUsername());
+            return user;
+        }
         
-        log.debug("User loaded successfully: {}", usernameOrEmail);
-        return user; // User implements UserDetails
+        cacheEvictionListener.evict(user.getId(), user.getUsername(), user.getEmail());
+        log.info("Upgraded password hash for user: {}", user.getUsername());
+        return user.toBuilder().password(newPassword).build();
+    }
+    
+    private UserPrincipal loadPrincipal(String usernameOrEmail) {
+        // Single query matching either username or email
+        User user = userRepository.findByUsernameOrEmail(usernameOrEmail)
+                .orElseThrow(() -> {
+                    // Reported by the caller as invalid credentials, which is logged there
+                    log.debug("User not found with username/email: {}", usernameOrEmail);
+                    return new UsernameNotFoundException(
+                            "User not found with username or email: " + usernameOrEmail);
+                });
+        
+        return UserPrincipal.from(user);
     }
-}
\ No newline at end of file
+}
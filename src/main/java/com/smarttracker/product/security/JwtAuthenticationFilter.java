@@ -1,29 +1,42 @@
 package com.smarttracker.product.security;
 
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.util.LogThrottle;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
+    private static final LogThrottle AUTHENTICATION_ERROR_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final TokenDenylist tokenDenylist;
     private final UserDetailsService userDetailsService;
+    private final AuthMetrics authMetrics;
+    private final OpaqueTokenService opaqueTokenService;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -31,39 +44,116 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                    FilterChain filterChain) throws ServletException, IOException {
         
         try {
-            String jwt = parseJwt(request);
+            String jwt = jwtUtil.resolveToken(request);
             
-            if (jwt != null && jwtUtil.validateToken(jwt, null)) {
-                String username = jwtUtil.extractUsername(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
+            if (jwt != null) {
+                UserDetails userDetails;
+                if (opaqueTokenService.isOpaque(jwt)) {
+                    // Session table lookup; nothing to verify or parse
+                    userDetails = opaqueTokenService.authenticate(jwt);
+                } else {
+                    // Repeat tokens are served from the cache; new ones are verified once
+                    userDetails = resolveUser(verifiedTokenCache.getVerifiedClaims(jwt));
+                }
                 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                log.debug("Authenticated user: {}, URI: {}", username, request.getRequestURI());
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
+                    
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    authMetrics.countRequestAuthentication(AuthMetrics.Outcome.SUCCESS);
+                    
+                    log.debug("Authenticated user: {}, URI: {}", userDetails.getUsername(), request.getRequestURI());
+                }
             }
         } catch (Exception e) {
-            log.error("Cannot set user authentication: {}", e.getMessage());
+            AuthMetrics.Outcome outcome = AuthMetrics.Outcome.of(e);
+            authMetrics.countRequestAuthentication(outcome);
+            
+            // Overloaded rather than unauthenticated: a 401 here would make clients drop valid tokens
+            ServiceBusyException busy = ServiceBusyException.findIn(e);
+            if (busy != null) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()));
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, busy.getMessage());
+                return;
+            }
+            
+            logFailure(outcome, e);
         }
         
         filterChain.doFilter(request, response);
     }
     
-    private String parseJwt(HttpServletRequest request) {
-        String headerAuth = request.getHeader("Authorization");
+    /**
+     * Expired, forged and malformed tokens are routine and already counted in
+     * metrics, so they are logged at DEBUG; unexpected failures are logged as
+     * errors, sampled so that an outage does not add a line per request.
+     */
+    static void logFailure(AuthMetrics.Outcome outcome, Throwable e) {
+        if (outcome != AuthMetrics.Outcome.ERROR) {
+            log.debug("Rejected bearer token ({}): {}", outcome, e.getMessage());
+            return;
+        }
+        
+        long suppressed = AUTHENTICATION_ERROR_LOG.tryAcquire();
+        if (suppressed >= 0) {
+            log.error("Cannot set user authentication: {}{}", e.getMessage(), LogThrottle.suppressedNote(suppressed));
+        }
+    }
+    
+    private UserDetails resolveUser(Claims claims) {
+        if (jwtUtil.isRefreshToken(claims)) {
+            log.debug("Rejected refresh token used as access token for user: {}", claims.getSubject());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+            return null;
+        }
+        
+        if (tokenDenylist.isRevoked(claims.getId(), claims.getExpiration())) {
+            log.debug("Rejected logged-out token for user: {}", claims.getSubject());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+            return null;
+        }
+        
+        if (jwtUtil.isClaimsOnly()) {
+            return loadFromClaims(claims);
+        }
+        
+        UserDetails user = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!jwtUtil.hasCurrentVersion(claims, user)) {
+            log.debug("Rejected revoked token for user: {}", claims.getSubject());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+            return null;
+        }
+        return user;
+    }
+    
+    /**
+     * Builds the principal straight from the token. Only the token version is
+     * checked against the (cached) current value, so revoked users are caught
+     * without loading the user row. Disabling or locking a user bumps the
+     * version, so it rejects their tokens from the next request on; the
+     * status flags in the token are checked as well.
+     */
+    private UserDetails loadFromClaims(Claims claims) {
+        UserPrincipal principal = jwtUtil.principalFromClaims(claims);
+        
+        if (!tokenVersionCache.isCurrent(principal.getId(), principal.getTokenVersion())) {
+            log.debug("Rejected revoked token for user: {}", principal.getUsername());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+            return null;
+        }
         
-        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
-            return headerAuth.substring(7);
+        if (!principal.isEnabled() || !principal.isAccountNonLocked()) {
+            log.debug("Rejected token for disabled or locked user: {}", principal.getUsername());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+            return null;
         }
         
-        return null;
+        return principal;
     }
 }
\ No newline at end of file
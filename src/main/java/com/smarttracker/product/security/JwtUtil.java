@@ -1,32 +1,137 @@
 package com.smarttracker.product.security;
 
+import com.smarttracker.product.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
     
+    private final AuthMetrics authMetrics;
+    private final SigningKeyRing signingKeyRing;
+    
     @Value("${jwt.secret}")
     private String secret;
     
+    @Value("${jwt.issuer:smart-product-tracker}")
+    private String issuer;
+    
+    // Accept HS256 tokens without a kid, issued before the key ring existed, for one
+    // access-token lifetime after startup. Off by default: jwt.secret is not a secret
+    // unless it is overridden, and anyone holding it could mint such tokens.
+    @Value("${jwt.signing.accept-legacy-hmac:false}")
+    private boolean acceptLegacyHmac;
+    
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
     
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.claims-only:false}")
+    private boolean claimsOnly;
+    
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_AUTHORITIES = "auth";
+    static final String CLAIM_ENABLED = "enb";
+    static final String CLAIM_NON_LOCKED = "nlk";
+    static final String CLAIM_NON_EXPIRED = "nex";
+    static final String CLAIM_CREDENTIALS_NON_EXPIRED = "cne";
+    static final String CLAIM_TOKEN_VERSION = "tver";
+    static final String CLAIM_FAMILY_ID = "fid";
+    static final String CLAIM_TYPE = "typ";
+    static final String TYPE_REFRESH = "refresh";
+    
+    // Built once; immutable and thread-safe. Keys are resolved per token by kid.
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        SecretKey legacyKey = acceptLegacyHmac ? Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)) : null;
+        long legacyCutoffMillis = System.currentTimeMillis() + jwtExpiration;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId();
+                        if (kid == null) {
+                            if (legacyKey != null && header.getAlgorithm() != null
+                                    && header.getAlgorithm().startsWith("HS")
+                                    && System.currentTimeMillis() < legacyCutoffMillis) {
+                                return legacyKey;
+                            }
+                            throw new SignatureException("Token has no key id");
+                        }
+                        SigningKeyRing.Key key = signingKeyRing.verificationKey(kid);
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key: " + kid);
+                        }
+                        return key.publicKey();
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * Verifies the signature and expiry of the token and returns its claims.
+     * Callers should parse once per request and read everything they need
+     * from the returned claims instead of calling the extract methods repeatedly.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            authMetrics.recordTokenVerification(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+            return claims;
+        } catch (RuntimeException e) {
+            authMetrics.recordTokenVerification(AuthMetrics.Outcome.of(e), System.nanoTime() - start);
+            throw e;
+        }
+    }
+    
+    /**
+     * Returns the bearer token from the Authorization header, or {@code null} if absent.
+     */
+    public String resolveToken(HttpServletRequest request) {
+        return resolveToken(request.getHeader("Authorization"));
+    }
+    
+    /**
+     * Returns the bearer token from an Authorization header value, or {@code null} if absent.
+     */
+    public String resolveToken(String headerAuth) {
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+        
+        return null;
     }
     
     public String extractUsername(String token) {
@@ -38,48 +143,175 @@ public class JwtUtil {
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
     }
     
-    public String generateToken(UserDetails userDetails) {
+    /**
+     * Generates an access token bound to a refresh token family, so that
+     * logging out with it can also revoke the family.
+     */
+    public String generateToken(UserDetails userDetails, String familyId) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), jwtExpiration);
+        if (claimsOnly) {
+            addPrincipalClaims(claims, toPrincipal(userDetails));
+        } else {
+            addTokenVersion(claims, userDetails);
+        }
+        if (familyId != null) {
+            claims.put(CLAIM_FAMILY_ID, familyId);
+        }
+        return createToken(claims, userDetails.getUsername(), jwtExpiration, UUID.randomUUID().toString(),
+                AuthMetrics.TokenType.ACCESS);
     }
     
-    public String generateRefreshToken(UserDetails userDetails) {
+    public String generateRefreshToken(UserDetails userDetails, String familyId, String tokenId) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+        claims.put(CLAIM_TYPE, TYPE_REFRESH);
+        claims.put(CLAIM_FAMILY_ID, familyId);
+        addTokenVersion(claims, userDetails);
+        return createToken(claims, userDetails.getUsername(), refreshExpiration, tokenId,
+                AuthMetrics.TokenType.REFRESH);
     }
     
-    private String createToken(Map<String, Object> claims, String subject, Long expiration) {
-        return Jwts.builder()
+    private String createToken(Map<String, Object> claims, String subject, Long expiration, String tokenId,
+                               AuthMetrics.TokenType type) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        SigningKeyRing.Key key = signingKeyRing.activeKey();
+        String token = Jwts.builder()
+                .header().keyId(key.id()).and()
                 .claims(claims)
+                .id(tokenId)
+                .issuer(issuer)
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(key.privateKey(), key.signatureAlgorithm())
                 .compact();
+        authMetrics.recordTokenSigning(type, System.nanoTime() - start);
+        return token;
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(parseClaims(token), userDetails);
+    }
+    
+    /**
+     * Checks already-verified claims against the given user without re-parsing
+     * the token, including that it was issued under the current token version.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date())
+                && hasCurrentVersion(claims, userDetails);
+    }
+    
+    /**
+     * Whether the token was issued under the user's current token version,
+     * that is, not before the user's tokens were last revoked. Tokens issued
+     * before versions were embedded carry none and pass.
+     */
+    public boolean hasCurrentVersion(Claims claims, UserDetails userDetails) {
+        Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        Integer current = tokenVersionOf(userDetails);
+        return tokenVersion == null || current == null || tokenVersion.intValue() == current;
     }
     
     public Long getExpirationTime() {
         return jwtExpiration;
     }
-}
\ No newline at end of file
+    
+    public Long getRefreshExpirationTime() {
+        return refreshExpiration;
+    }
+    
+    public boolean isRefreshToken(Claims claims) {
+        return TYPE_REFRESH.equals(claims.get(CLAIM_TYPE, String.class));
+    }
+    
+    public String extractFamilyId(Claims claims) {
+        return claims.get(CLAIM_FAMILY_ID, String.class);
+    }
+    
+    /**
+     * Whether access tokens carry everything needed to authenticate a request,
+     * so the filter can skip the {@code UserDetailsService} lookup.
+     */
+    public boolean isClaimsOnly() {
+        return claimsOnly;
+    }
+    
+    /**
+     * Rebuilds the principal embedded by {@link #generateToken} in claims-only mode.
+     * The result has no password and must only be used for request authentication.
+     *
+     * @throws IllegalArgumentException if the token does not carry principal claims
+     */
+    public UserPrincipal principalFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        if (userId == null || tokenVersion == null) {
+            throw new IllegalArgumentException("Token does not carry principal claims");
+        }
+        
+        List<?> authorities = claims.get(CLAIM_AUTHORITIES, List.class);
+        
+        return UserPrincipal.builder()
+                .id(userId.longValue())
+                .username(claims.getSubject())
+                .authorities(authorities == null ? List.of() : authorities.stream()
+                        .map(authority -> new SimpleGrantedAuthority(authority.toString()))
+                        .toList())
+                .enabled(Boolean.TRUE.equals(claims.get(CLAIM_ENABLED, Boolean.class)))
+                .accountNonLocked(Boolean.TRUE.equals(claims.get(CLAIM_NON_LOCKED, Boolean.class)))
+                .accountNonExpired(Boolean.TRUE.equals(claims.get(CLAIM_NON_EXPIRED, Boolean.class)))
+                .credentialsNonExpired(Boolean.TRUE.equals(claims.get(CLAIM_CREDENTIALS_NON_EXPIRED, Boolean.class)))
+                .tokenVersion(tokenVersion.intValue())
+                .build();
+    }
+    
+    private static void addPrincipalClaims(Map<String, Object> claims, UserPrincipal principal) {
+        claims.put(CLAIM_USER_ID, principal.getId());
+        claims.put(CLAIM_AUTHORITIES, principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(CLAIM_ENABLED, principal.isEnabled());
+        claims.put(CLAIM_NON_LOCKED, principal.isAccountNonLocked());
+        claims.put(CLAIM_NON_EXPIRED, principal.isAccountNonExpired());
+        claims.put(CLAIM_CREDENTIALS_NON_EXPIRED, principal.isCredentialsNonExpired());
+        claims.put(CLAIM_TOKEN_VERSION, principal.getTokenVersion());
+    }
+    
+    private static void addTokenVersion(Map<String, Object> claims, UserDetails userDetails) {
+        Integer tokenVersion = tokenVersionOf(userDetails);
+        if (tokenVersion != null) {
+            claims.put(CLAIM_TOKEN_VERSION, tokenVersion);
+        }
+    }
+    
+    private static Integer tokenVersionOf(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal principal) {
+            return principal.getTokenVersion();
+        }
+        if (userDetails instanceof User user) {
+            return user.getTokenVersion();
+        }
+        return null;
+    }
+    
+    private static UserPrincipal toPrincipal(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal principal) {
+            return principal;
+        }
+        if (userDetails instanceof User user) {
+            return UserPrincipal.from(user);
+        }
+        throw new IllegalArgumentException(
+                "Claims-only tokens require a UserPrincipal, got: " + userDetails.getClass().getName());
+    }
+}
@@ -0,0 +1,256 @@
+package com.smarttracker.product.security;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size open-addressing hash table of sessions held in direct (off-heap)
+ * memory. Each slot is one 64-byte cache line:
+ *
+ * <pre>
+ *  0  control     status (2 bits) | write version
+ *  8  key high    the 128-bit opaque token
+ * 16  key low
+ * 24  user id
+ * 32  expires at  epoch millis
+ * 40  token version
+ * 48  family id   refresh token family, UUID high bits
+ * 56  family id   UUID low bits
+ * </pre>
+ *
+ * Tokens are uniformly random, so their high bits are used directly as the
+ * home slot and collisions probe linearly for at most {@code maxProbe}
+ * slots. Readers take no locks: the control word works as a seqlock, and
+ * writers claim a slot by CAS on it, bumping the version, before rewriting
+ * it. A read that overlaps a rewrite sees the version change and retries, so
+ * it never mixes two sessions. Revoked and expired slots are reused by later
+ * inserts but never return to empty, which keeps probe chains intact.
+ *
+ * <p>Nothing here is visible to the garbage collector apart from the segment
+ * buffers themselves, whatever the number of sessions.
+ */
+final class OffHeapSessionTable {
+    
+    static final int SLOT_BYTES = 64;
+    
+    private static final int CONTROL = 0;
+    private static final int KEY_HIGH = 8;
+    private static final int KEY_LOW = 16;
+    private static final int USER_ID = 24;
+    private static final int EXPIRES_AT = 32;
+    private static final int TOKEN_VERSION = 40;
+    private static final int FAMILY_HIGH = 48;
+    private static final int FAMILY_LOW = 56;
+    
+    private static final long STATUS_MASK = 0b11;
+    private static final long EMPTY = 0;
+    private static final long WRITING = 1;
+    private static final long LIVE = 2;
+    private static final long REVOKED = 3;
+    private static final long VERSION_STEP = 0b100;
+    
+    // 2^24 slots of 64 bytes = 1 GiB, the largest power of two a ByteBuffer can address
+    private static final int MAX_SEGMENT_SHIFT = 24;
+    
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long mask;
+    private final int maxProbe;
+    private final AtomicLong live = new AtomicLong();
+    
+    /**
+     * @param capacity slot count, rounded up to a power of two
+     * @param maxProbe slots examined per insert or lookup before giving up
+     */
+    OffHeapSessionTable(long capacity, int maxProbe) {
+        if (capacity < 1 || capacity > 1L << 40) {
+            throw new IllegalArgumentException("Session table capacity out of range: " + capacity);
+        }
+        long slots = Long.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = slots - 1;
+        this.maxProbe = (int) Math.min(maxProbe, slots);
+        this.segmentShift = Math.min(Long.numberOfTrailingZeros(slots), MAX_SEGMENT_SHIFT);
+        this.segmentMask = (1L << segmentShift) - 1;
+        
+        int segmentBytes = (int) ((1L << segmentShift) * SLOT_BYTES);
+        this.segments = new ByteBuffer[(int) (slots >>> segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+            // Aligned so that every slot sits on one cache line and atomic access is permitted
+            segments[i] = ByteBuffer.allocateDirect(segmentBytes + SLOT_BYTES)
+                    .alignedSlice(SLOT_BYTES)
+                    .limit(segmentBytes)
+                    .slice()
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+    
+    /**
+     * Stores a session, reusing the first revoked or expired slot on the probe path.
+     *
+     * @return {@code false} if no slot within {@code maxProbe} is free
+     */
+    boolean put(long keyHigh, long keyLow, long userId, int tokenVersion, long expiresAtMillis,
+                UUID familyId, long nowMillis) {
+        long slot = keyHigh & mask;
+        for (int probe = 0; probe < maxProbe; probe++, slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int base = offset(slot);
+            
+            long control = (long) LONGS.getVolatile(segment, base + CONTROL);
+            long status = control & STATUS_MASK;
+            boolean expired = status == LIVE && (long) LONGS.get(segment, base + EXPIRES_AT) <= nowMillis;
+            if (status != EMPTY && status != REVOKED && !expired) {
+                continue;
+            }
+            
+            long claimed = ((control & ~STATUS_MASK) + VERSION_STEP) | WRITING;
+            if (!LONGS.compareAndSet(segment, base + CONTROL, control, claimed)) {
+                continue;
+            }
+            if (expired) {
+                live.decrementAndGet();
+            }
+            
+            LONGS.set(segment, base + KEY_HIGH, keyHigh);
+            LONGS.set(segment, base + KEY_LOW, keyLow);
+            LONGS.set(segment, base + USER_ID, userId);
+            LONGS.set(segment, base + EXPIRES_AT, expiresAtMillis);
+            LONGS.set(segment, base + TOKEN_VERSION, (long) tokenVersion);
+            LONGS.set(segment, base + FAMILY_HIGH, familyId == null ? 0L : familyId.getMostSignificantBits());
+            LONGS.set(segment, base + FAMILY_LOW, familyId == null ? 0L : familyId.getLeastSignificantBits());
+            LONGS.setRelease(segment, base + CONTROL, (claimed & ~STATUS_MASK) | LIVE);
+            
+            live.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the live, unexpired session for the token, or {@code null}.
+     */
+    Session get(long keyHigh, long keyLow, long nowMillis) {
+        long slot = keyHigh & mask;
+        for (int probe = 0; probe < maxProbe; probe++, slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int base = offset(slot);
+            
+            while (true) {
+                long control = (long) LONGS.getAcquire(segment, base + CONTROL);
+                long status = control & STATUS_MASK;
+                if (status == EMPTY) {
+                    return null;
+                }
+                if (status != LIVE
+                        || (long) LONGS.get(segment, base + KEY_HIGH) != keyHigh
+                        || (long) LONGS.get(segment, base + KEY_LOW) != keyLow) {
+                    break;
+                }
+                
+                long userId = (long) LONGS.get(segment, base + USER_ID);
+                long expiresAt = (long) LONGS.get(segment, base + EXPIRES_AT);
+                long tokenVersion = (long) LONGS.get(segment, base + TOKEN_VERSION);
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.get(segment, base + CONTROL) != control) {
+                    continue; // rewritten or revoked while reading
+                }
+                return expiresAt > nowMillis ? new Session(userId, (int) tokenVersion) : null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Revokes the token's session immediately.
+     *
+     * @return the refresh token family recorded with the session, or {@code null}
+     *         if it has none or the token is unknown
+     */
+    UUID revoke(long keyHigh, long keyLow) {
+        long slot = keyHigh & mask;
+        for (int probe = 0; probe < maxProbe; probe++, slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int base = offset(slot);
+            
+            while (true) {
+                long control = (long) LONGS.getVolatile(segment, base + CONTROL);
+                long status = control & STATUS_MASK;
+                if (status == EMPTY) {
+                    return null;
+                }
+                if (status != LIVE
+                        || (long) LONGS.get(segment, base + KEY_HIGH) != keyHigh
+                        || (long) LONGS.get(segment, base + KEY_LOW) != keyLow) {
+                    break;
+                }
+                
+                long familyHigh = (long) LONGS.get(segment, base + FAMILY_HIGH);
+                long familyLow = (long) LONGS.get(segment, base + FAMILY_LOW);
+                // Same version, new status: concurrent readers see the change and stop matching
+                if (!LONGS.compareAndSet(segment, base + CONTROL, control, (control & ~STATUS_MASK) | REVOKED)) {
+                    continue;
+                }
+                live.decrementAndGet();
+                return familyHigh == 0 && familyLow == 0 ? null : new UUID(familyHigh, familyLow);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Marks expired sessions as free. Inserts reuse expired slots anyway; this
+     * keeps {@link #size()} accurate.
+     *
+     * @return the number of sessions removed
+     */
+    long purgeExpired(long nowMillis) {
+        long removed = 0;
+        for (long slot = 0; slot <= mask; slot++) {
+            ByteBuffer segment = segment(slot);
+            int base = offset(slot);
+            
+            long control = (long) LONGS.getVolatile(segment, base + CONTROL);
+            if ((control & STATUS_MASK) == LIVE
+                    && (long) LONGS.get(segment, base + EXPIRES_AT) <= nowMillis
+                    && LONGS.compareAndSet(segment, base + CONTROL, control, (control & ~STATUS_MASK) | REVOKED)) {
+                live.decrementAndGet();
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Live sessions, including any that expired since the last purge.
+     */
+    long size() {
+        return live.get();
+    }
+    
+    long capacity() {
+        return mask + 1;
+    }
+    
+    long offHeapBytes() {
+        return capacity() * SLOT_BYTES;
+    }
+    
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> segmentShift)];
+    }
+    
+    private int offset(long slot) {
+        return (int) (slot & segmentMask) * SLOT_BYTES;
+    }
+    
+    record Session(long userId, int tokenVersion) {
+    }
+}
@@ -0,0 +1,209 @@
+package com.smarttracker.product.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opaque reference access tokens: 128 random bits, 22 URL-safe characters,
+ * resolved through an {@link OffHeapSessionTable} instead of being verified
+ * and parsed. Resolving one is a character decode and a hash probe, with no
+ * JSON, no signature check and no per-session heap objects. Logging out
+ * revokes the session at once rather than through a denylist.
+ *
+ * <p>The table lives in this process only and is not persisted. Opaque mode
+ * therefore needs session affinity (or a single instance), and after a
+ * restart clients get a 401 and obtain a new access token with their refresh
+ * token, which is still a JWT. When the table has no free slot on a token's
+ * probe path, a JWT access token is issued instead, so a full table degrades
+ * rather than failing logins.
+ *
+ * <p>The table is allocated only when {@code app.security.opaque-tokens.enabled}
+ * is set. It takes {@code capacity * 64} bytes of direct memory, which must
+ * fit within {@code -XX:MaxDirectMemorySize}.
+ */
+@Component
+@Slf4j
+public class OpaqueTokenService {
+    
+    static final int TOKEN_LENGTH = 22;
+    
+    private static final int HALF_LENGTH = TOKEN_LENGTH / 2;
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+    private static final long FULL_WARNING_INTERVAL_MILLIS = 60_000;
+    
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+    
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionCache tokenVersionCache;
+    private final AuthMetrics authMetrics;
+    private final OffHeapSessionTable table;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter tableFull;
+    private final AtomicLong lastFullWarning = new AtomicLong();
+    
+    public OpaqueTokenService(CustomUserDetailsService userDetailsService,
+                              TokenVersionCache tokenVersionCache,
+                              AuthMetrics authMetrics,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.security.opaque-tokens.enabled:false}") boolean enabled,
+                              @Value("${app.security.opaque-tokens.capacity:1048576}") long capacity,
+                              @Value("${app.security.opaque-tokens.max-probe:32}") int maxProbe) {
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionCache = tokenVersionCache;
+        this.authMetrics = authMetrics;
+        this.table = enabled ? new OffHeapSessionTable(capacity, maxProbe) : null;
+        this.tableFull = Counter.builder("security.opaque.sessions.rejected")
+                .description("Opaque tokens not issued because the session table had no free slot")
+                .register(meterRegistry);
+        
+        if (table != null) {
+            Gauge.builder("security.opaque.sessions", table, OffHeapSessionTable::size)
+                    .description("Live opaque token sessions")
+                    .register(meterRegistry);
+            Gauge.builder("security.opaque.sessions.capacity", table, OffHeapSessionTable::capacity)
+                    .register(meterRegistry);
+            log.info("Opaque token session table: {} slots, {} MiB off-heap",
+                    table.capacity(), table.offHeapBytes() >> 20);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return table != null;
+    }
+    
+    /**
+     * Whether the bearer token has the opaque format (JWTs always contain dots).
+     */
+    public boolean isOpaque(String token) {
+        if (table == null || token == null || token.length() != TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < TOKEN_LENGTH; i++) {
+            char c = token.charAt(i);
+            if (c >= 128 || DECODE[c] < 0) {
+                return false;
+            }
+        }
+        // The leading character of each half carries only the top 4 bits of a long
+        return DECODE[token.charAt(0)] < 16 && DECODE[token.charAt(HALF_LENGTH)] < 16;
+    }
+    
+    /**
+     * Issues an opaque access token for the user.
+     *
+     * @return the token, or {@code null} if opaque mode is off or the table is
+     *         full, in which case the caller issues a JWT
+     */
+    public String issue(UserPrincipal user, String familyId, long expirationMillis) {
+        if (table == null) {
+            return null;
+        }
+        
+        long now = System.currentTimeMillis();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        UUID family = familyId == null ? null : UUID.fromString(familyId);
+        if (!table.put(high, low, user.getId(), user.getTokenVersion(), now + expirationMillis, family, now)) {
+            tableFull.increment();
+            long lastWarning = lastFullWarning.get();
+            if (now - lastWarning > FULL_WARNING_INTERVAL_MILLIS && lastFullWarning.compareAndSet(lastWarning, now)) {
+                log.warn("Opaque token session table is full ({} of {} slots); issuing JWT access tokens "
+                        + "until sessions expire. Raise app.security.opaque-tokens.capacity",
+                        table.size(), table.capacity());
+            }
+            return null;
+        }
+        
+        char[] token = new char[TOKEN_LENGTH];
+        encode(high, token, 0);
+        encode(low, token, HALF_LENGTH);
+        return new String(token);
+    }
+    
+    /**
+     * Resolves an opaque token to its user, or returns {@code null} if the
+     * session is unknown, expired, revoked or predates a revoke-all.
+     * The caller must have checked {@link #isOpaque}.
+     */
+    public UserPrincipal authenticate(String token) {
+        OffHeapSessionTable.Session session = table.get(decode(token, 0), decode(token, HALF_LENGTH),
+                System.currentTimeMillis());
+        if (session == null) {
+            log.debug("Rejected unknown, expired or revoked opaque token");
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+            return null;
+        }
+        
+        if (!tokenVersionCache.isCurrent(session.userId(), session.tokenVersion())) {
+            log.debug("Rejected revoked opaque token for user id: {}", session.userId());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+            return null;
+        }
+        
+        try {
+            return userDetailsService.loadUserById(session.userId());
+        } catch (UsernameNotFoundException e) {
+            log.debug("Rejected opaque token for user id {}: {}", session.userId(), e.getMessage());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+            return null;
+        }
+    }
+    
+    /**
+     * Ends the session immediately.
+     *
+     * @return the refresh token family the session belonged to, or {@code null}
+     */
+    public String revoke(String token) {
+        if (!isOpaque(token)) {
+            return null;
+        }
+        UUID family = table.revoke(decode(token, 0), decode(token, HALF_LENGTH));
+        return family == null ? null : family.toString();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.security.opaque-tokens.purge-interval:10m}")
+    public void purgeExpired() {
+        if (table == null) {
+            return;
+        }
+        long removed = table.purgeExpired(System.currentTimeMillis());
+        if (removed > 0) {
+            log.debug("Purged {} expired opaque token sessions", removed);
+        }
+    }
+    
+    // Eleven base64url characters, most significant first; the first holds the top 4 bits
+    private static void encode(long value, char[] out, int offset) {
+        for (int i = offset + HALF_LENGTH - 1; i >= offset; i--) {
+            out[i] = ALPHABET[(int) (value & 63)];
+            value >>>= 6;
+        }
+    }
+    
+    private static long decode(String token, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + HALF_LENGTH; i++) {
+            value = value << 6 | DECODE[token.charAt(i)];
+        }
+        return value;
+    }
+}
@@ -0,0 +1,165 @@
+package com.smarttracker.product.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servlet side of {@link RateLimiter}. Ordered ahead of the Spring Security
+ * filter chain. The client IP is {@code request.getRemoteAddr()}. Behind a
+ * proxy, set {@code server.forward-headers-strategy} so it reflects the real
+ * client. Bodies over {@link RateLimiter#MAX_INSPECTED_BODY} bytes are
+ * refused with 413, as on the reactive side.
+ *
+ * <p>Endpoints are matched on the decoded path without {@code ;} parameters
+ * or repeated slashes, so that {@code /api/v1/auth/logi%6E} or
+ * {@code //api/v1/auth/login;x}, which reach the same handler, are throttled
+ * too.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    // Decodes, drops ;parameters and collapses "//"
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return match(request) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RateLimiter.Endpoint endpoint = match(request);
+        
+        long waitNanos = rateLimiter.acquireForClient(endpoint, request.getRemoteAddr());
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+        
+        if (rateLimiter.limitsAccounts(endpoint)) {
+            byte[] body = request.getInputStream().readNBytes(RateLimiter.MAX_INSPECTED_BODY + 1);
+            if (body.length > RateLimiter.MAX_INSPECTED_BODY) {
+                // A body that cannot be inspected is not let through: padding must not skip the account limit
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                return;
+            }
+            waitNanos = rateLimiter.acquireForAccounts(endpoint, body);
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = RateLimiter.retryAfterSeconds(waitNanos);
+        
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), RateLimiter.rejection(retryAfterSeconds));
+    }
+    
+    private RateLimiter.Endpoint match(HttpServletRequest request) {
+        return rateLimiter.match(request.getMethod(), PATH_HELPER.getPathWithinApplication(request));
+    }
+    
+    /**
+     * Replays the request body, already read for inspection, to the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            return new BodyInputStream(new ByteArrayInputStream(body));
+        }
+        
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+    
+    private static final class BodyInputStream extends ServletInputStream {
+        
+        private final InputStream delegate;
+        private boolean finished;
+        
+        BodyInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            finished = b < 0;
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            finished = n < 0;
+            return n;
+        }
+        
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+        
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+        
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads are not supported");
+        }
+    }
+}
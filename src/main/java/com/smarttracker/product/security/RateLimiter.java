@@ -0,0 +1,242 @@
+package com.smarttracker.product.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smarttracker.product.dto.ApiResponseDTO;
+import com.smarttracker.product.util.LogThrottle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-client throttling of the unauthenticated, BCrypt-backed endpoints
+ * (login and registration), applied by {@link RateLimitFilter} on the servlet
+ * stack and {@link ReactiveRateLimitFilter} on the reactive one. Both run
+ * ahead of Spring Security, so a rejected request costs no token parsing,
+ * hashing or database work.
+ *
+ * <p>Each request takes a token from the bucket for its client IP, then
+ * from one bucket per submitted account identifier (login: username or email;
+ * registration: username and email). The latter stops one IP range from
+ * hammering a single account and many IPs from hammering one account.
+ * Buckets are lock-free ({@link TokenBucket}) and live in a size-bounded
+ * Caffeine map. A bucket idle for its whole refill period is full again, so
+ * it is evicted. Rejections get 429 with Retry-After and are counted in
+ * {@code security.rate.limit.rejected{endpoint,limit}}.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+    
+    // Login and registration bodies are tiny; anything larger is refused with 413
+    static final int MAX_INSPECTED_BODY = 8 * 1024;
+    
+    // An attack on one account would otherwise log a line per rejected attempt
+    private static final LogThrottle THROTTLED_ACCOUNT_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    
+    // Keys the account reference in that line; random per process, so it cannot be reversed with a list of names
+    private static final byte[] ACCOUNT_REF_KEY = KeyGenerators.secureRandom(32).generateKey();
+    
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Endpoint> endpoints;
+    private final Cache<String, TokenBucket> buckets;
+    
+    public RateLimiter(ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.security.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${app.security.rate-limit.maximum-keys:100000}") long maximumKeys,
+                       @Value("${app.security.rate-limit.login.per-ip:30/1m}") String loginPerIp,
+                       @Value("${app.security.rate-limit.login.per-account:10/5m}") String loginPerAccount,
+                       @Value("${app.security.rate-limit.register.per-ip:10/1h}") String registerPerIp,
+                       @Value("${app.security.rate-limit.register.per-account:3/1h}") String registerPerAccount) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.endpoints = List.of(
+                new Endpoint("login", "/api/v1/auth/login", List.of("usernameOrEmail"),
+                        TokenBucket.Limit.parse(loginPerIp), TokenBucket.Limit.parse(loginPerAccount), meterRegistry),
+                new Endpoint("register", "/api/v1/auth/register", List.of("username", "email"),
+                        TokenBucket.Limit.parse(registerPerIp), TokenBucket.Limit.parse(registerPerAccount), meterRegistry));
+        
+        // Idle for the longest refill period means full again, so dropping it changes nothing
+        Duration idle = endpoints.stream()
+                .flatMap(endpoint -> Stream.of(endpoint.perIp.period(), endpoint.perAccount.period()))
+                .max(Duration::compareTo)
+                .orElse(Duration.ofHours(1));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(idle)
+                .build();
+        
+        Gauge.builder("security.rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Token buckets currently tracked")
+                .register(meterRegistry);
+        log.info("Rate limits enabled: {}, {}", enabled, endpoints);
+    }
+    
+    /**
+     * Returns the throttled endpoint for the request, or {@code null} if it is not throttled.
+     *
+     * @param path decoded request path without the context path
+     */
+    public Endpoint match(String method, String path) {
+        if (!enabled || !"POST".equals(method)) {
+            return null;
+        }
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.path.equals(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Takes a token for the client address.
+     *
+     * @return 0 if allowed, otherwise nanoseconds until the next token
+     */
+    public long acquireForClient(Endpoint endpoint, String clientAddress) {
+        long waitNanos = take(endpoint.name + "|ip|" + clientAddress, endpoint.perIp);
+        if (waitNanos > 0) {
+            endpoint.rejectedByIp.increment();
+        }
+        return waitNanos;
+    }
+    
+    /**
+     * Whether {@link #acquireForAccounts} needs the request body.
+     */
+    public boolean limitsAccounts(Endpoint endpoint) {
+        return endpoint.perAccount.enabled();
+    }
+    
+    /**
+     * Takes a token for each account identifier in the JSON body. A malformed
+     * body is let through; the controller rejects it without hashing.
+     *
+     * @return 0 if allowed, otherwise nanoseconds until the next token
+     */
+    public long acquireForAccounts(Endpoint endpoint, byte[] body) {
+        for (String account : accounts(body, endpoint.accountFields)) {
+            long waitNanos = take(endpoint.name + "|account|" + account, endpoint.perAccount);
+            if (waitNanos > 0) {
+                endpoint.rejectedByAccount.increment();
+                long suppressed = THROTTLED_ACCOUNT_LOG.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("Throttled {} attempts for account ref {}{}", endpoint.name, accountRef(account),
+                            LogThrottle.suppressedNote(suppressed));
+                }
+                return waitNanos;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Whole seconds for the Retry-After header, rounded up.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+    
+    public static ApiResponseDTO<Void> rejection(long retryAfterSeconds) {
+        return ApiResponseDTO.error(
+                "Too many attempts. Please retry in " + retryAfterSeconds + " seconds.",
+                "TOO_MANY_REQUESTS");
+    }
+    
+    /**
+     * Short keyed hash of an account identifier for logs: repeated attacks
+     * on one account show the same reference within a run, but the username
+     * or email itself is not written.
+     */
+    static String accountRef(String account) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(ACCOUNT_REF_KEY, "HmacSHA256"));
+            byte[] digest = mac.doFinal(account.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+    
+    private long take(String key, TokenBucket.Limit limit) {
+        if (!limit.enabled()) {
+            return 0;
+        }
+        return buckets.get(key, k -> new TokenBucket()).tryAcquire(limit);
+    }
+    
+    private List<String> accounts(byte[] body, List<String> fields) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return fields.stream()
+                    .map(field -> json.path(field).asText(null))
+                    .filter(StringUtils::hasText)
+                    .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                    .distinct()
+                    .toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+    
+    public static final class Endpoint {
+        
+        private final String name;
+        private final String path;
+        private final List<String> accountFields;
+        private final TokenBucket.Limit perIp;
+        private final TokenBucket.Limit perAccount;
+        private final Counter rejectedByIp;
+        private final Counter rejectedByAccount;
+        
+        Endpoint(String name, String path, List<String> accountFields,
+                 TokenBucket.Limit perIp, TokenBucket.Limit perAccount, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.path = path;
+            this.accountFields = accountFields;
+            this.perIp = perIp;
+            this.perAccount = perAccount;
+            this.rejectedByIp = rejectedCounter(meterRegistry, name, "ip");
+            this.rejectedByAccount = rejectedCounter(meterRegistry, name, "account");
+        }
+        
+        private static Counter rejectedCounter(MeterRegistry meterRegistry, String endpoint, String limit) {
+            return Counter.builder("security.rate.limit.rejected")
+                    .description("Requests rejected with 429 by the rate limiter")
+                    .tag("endpoint", endpoint)
+                    .tag("limit", limit)
+                    .register(meterRegistry);
+        }
+        
+        @Override
+        public String toString() {
+            return name + " per-ip " + perIp + ", per-account " + perAccount;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.repository.ReactiveUserRepository;
+import com.smarttracker.product.util.CacheLoads;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Reactive counterpart of {@link CustomUserDetailsService}: same principal
+ * cache, same lookup statement, but the query runs on R2DBC and no thread
+ * waits for it. Writes made here do not pass through
+ * {@link UserCacheEvictionListener}, so they evict explicitly.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCustomUserDetailsService
+        implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+    
+    private final ReactiveUserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final AuthMetrics authMetrics;
+    
+    @Override
+    public Mono<UserDetails> findByUsername(String usernameOrEmail) {
+        return findPrincipal(usernameOrEmail).cast(UserDetails.class);
+    }
+    
+    /**
+     * Resolves a username or email to a usable principal, failing with
+     * {@link UsernameNotFoundException} if there is none or the account is
+     * disabled or locked.
+     */
+    public Mono<UserPrincipal> findPrincipal(String usernameOrEmail) {
+        // Usernames and emails are stored lower-case; normalizing here also shares cache entries
+        String lookupKey = usernameOrEmail.toLowerCase(Locale.ROOT);
+        
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    CacheLoads.Source[] source = new CacheLoads.Source[1];
+                    // Shared with concurrent lookups of the same key, so a cancelled caller must not cancel it
+                    return Mono.fromFuture(userPrincipalCache.getAsync(lookupKey,
+                                    key -> userRepository.findByUsernameOrEmail(key)
+                                            .map(UserPrincipal::from)
+                                            .toFuture(),
+                                    s -> source[0] = s), true)
+                            .doFinally(signal -> authMetrics.recordUserLookup(source[0], System.nanoTime() - start));
+                })
+                .switchIfEmpty(Mono.error(() -> {
+                    // Reported by the caller as invalid credentials, which is logged there
+                    log.debug("User not found with username/email: {}", usernameOrEmail);
+                    return new UsernameNotFoundException(
+                            "User not found with username or email: " + usernameOrEmail);
+                }))
+                .doOnNext(user -> CustomUserDetailsService.checkUsable(user, usernameOrEmail));
+    }
+    
+    /**
+     * Stores a rehashed password after a login that used an outdated cost,
+     * as {@link CustomUserDetailsService#updatePassword} does for the servlet
+     * stack: only while the verified hash is still stored, else it is dropped.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails userDetails, String newPassword) {
+        UserPrincipal user = (UserPrincipal) userDetails;
+        return userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), newPassword)
+                .map(updated -> {
+                    if (updated == 0) {
+                        log.debug("Skipped password rehash for user {}: the password changed meanwhile",
+                                user.getUsername());
+                        return user;
+                    }
+                    userPrincipalCache.evict(user.getUsername());
+                    userPrincipalCache.evict(user.getEmail());
+                    userPrincipalCache.evict(UserPrincipalCache.idKey(user.getId()));
+                    log.info("Upgraded password hash for user: {}", user.getUsername());
+                    return user.toBuilder().password(newPassword).build();
+                });
+    }
+}
@@ -0,0 +1,143 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.repository.ReactiveUserRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Reactive counterpart of {@link JwtAuthenticationFilter}, with the same
+ * checks in the same order. Verification is CPU-only and cached; the user or
+ * token version lookup on a cache miss is an R2DBC query, so no event loop
+ * thread blocks. Opaque tokens are served by the servlet stack only.
+ *
+ * <p>Not a bean: registered in the WebFlux security chain by
+ * {@code ReactiveSecurityConfig}, so it does not also run as a plain WebFilter.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+    
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final TokenDenylist tokenDenylist;
+    private final ReactiveCustomUserDetailsService userDetailsService;
+    private final ReactiveUserRepository userRepository;
+    private final AuthMetrics authMetrics;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwt = jwtUtil.resolveToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (jwt == null) {
+            return chain.filter(exchange);
+        }
+        
+        return Mono.fromCallable(() -> verifiedTokenCache.getVerifiedClaims(jwt))
+                .flatMap(this::resolveUser)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> failed(exchange, e))
+                .flatMap(userDetails -> {
+                    if (userDetails.isEmpty()) {
+                        return chain.filter(exchange);
+                    }
+                    
+                    UserDetails user = userDetails.get();
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+                    authMetrics.countRequestAuthentication(AuthMetrics.Outcome.SUCCESS);
+                    log.debug("Authenticated user: {}, URI: {}", user.getUsername(), exchange.getRequest().getPath());
+                    
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+                });
+    }
+    
+    private Mono<UserDetails> resolveUser(Claims claims) {
+        if (jwtUtil.isRefreshToken(claims)) {
+            log.debug("Rejected refresh token used as access token for user: {}", claims.getSubject());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+            return Mono.empty();
+        }
+        
+        if (tokenDenylist.isRevoked(claims.getId(), claims.getExpiration())) {
+            log.debug("Rejected logged-out token for user: {}", claims.getSubject());
+            authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+            return Mono.empty();
+        }
+        
+        if (jwtUtil.isClaimsOnly()) {
+            return loadFromClaims(claims);
+        }
+        
+        return userDetailsService.findByUsername(claims.getSubject())
+                .filter(user -> {
+                    if (jwtUtil.hasCurrentVersion(claims, user)) {
+                        return true;
+                    }
+                    log.debug("Rejected revoked token for user: {}", claims.getSubject());
+                    authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+                    return false;
+                });
+    }
+    
+    /**
+     * See {@link JwtAuthenticationFilter}: only the token version is checked
+     * against the (cached) current value.
+     */
+    private Mono<UserDetails> loadFromClaims(Claims claims) {
+        UserPrincipal principal = jwtUtil.principalFromClaims(claims);
+        
+        return Mono.fromFuture(tokenVersionCache.isCurrentAsync(principal.getId(), principal.getTokenVersion(),
+                        id -> userRepository.findTokenVersionById(id).toFuture()), true)
+                .flatMap(current -> {
+                    if (!current) {
+                        log.debug("Rejected revoked token for user: {}", principal.getUsername());
+                        authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REVOKED);
+                        return Mono.empty();
+                    }
+                    
+                    if (!principal.isEnabled() || !principal.isAccountNonLocked()) {
+                        log.debug("Rejected token for disabled or locked user: {}", principal.getUsername());
+                        authMetrics.countRequestAuthentication(AuthMetrics.Outcome.REJECTED);
+                        return Mono.empty();
+                    }
+                    
+                    return Mono.just(principal);
+                });
+    }
+    
+    /**
+     * Continues unauthenticated, except when overloaded: that is answered with
+     * 503 here (an empty result), since a 401 would make clients drop valid tokens.
+     */
+    private Mono<Optional<UserDetails>> failed(ServerWebExchange exchange, Throwable e) {
+        AuthMetrics.Outcome outcome = AuthMetrics.Outcome.of(e);
+        authMetrics.countRequestAuthentication(outcome);
+        
+        ServiceBusyException busy = ServiceBusyException.findIn(e);
+        if (busy != null) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()));
+            return response.setComplete().then(Mono.empty());
+        }
+        
+        JwtAuthenticationFilter.logFailure(outcome, e);
+        return Mono.just(Optional.empty());
+    }
+}
@@ -0,0 +1,128 @@
+package com.smarttracker.product.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Reactive side of {@link RateLimiter}, ordered ahead of the WebFlux security
+ * chain. The body is joined without blocking, inspected, then replayed to
+ * the controller. Bodies over {@link RateLimiter#MAX_INSPECTED_BODY} bytes
+ * are refused with 413; login and registration bodies are far smaller.
+ * Endpoints are matched on the decoded path, as in {@link RateLimitFilter}.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveRateLimitFilter implements WebFilter {
+    
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        RateLimiter.Endpoint endpoint = rateLimiter.match(request.getMethod().name(), normalizedPath(request));
+        if (endpoint == null) {
+            return chain.filter(exchange);
+        }
+        
+        long waitNanos = rateLimiter.acquireForClient(endpoint, clientAddress(request));
+        if (waitNanos > 0) {
+            return reject(exchange, waitNanos);
+        }
+        
+        if (!rateLimiter.limitsAccounts(endpoint)) {
+            return chain.filter(exchange);
+        }
+        
+        return DataBufferUtils.join(request.getBody(), RateLimiter.MAX_INSPECTED_BODY)
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    long accountWaitNanos = rateLimiter.acquireForAccounts(endpoint, body);
+                    if (accountWaitNanos > 0) {
+                        return reject(exchange, accountWaitNanos);
+                    }
+                    return chain.filter(exchange.mutate().request(replay(exchange, body)).build());
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+    
+    private Mono<Void> reject(ServerWebExchange exchange, long waitNanos) {
+        long retryAfterSeconds = RateLimiter.retryAfterSeconds(waitNanos);
+        
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(RateLimiter.rejection(retryAfterSeconds));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+    
+    private static ServerHttpRequest replay(ServerWebExchange exchange, byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+    
+    // Decoded segments without ;parameters or empty segments, so encoded or padded paths still match
+    private static String normalizedPath(ServerHttpRequest request) {
+        StringBuilder path = new StringBuilder();
+        for (PathContainer.Element element : request.getPath().pathWithinApplication().elements()) {
+            if (element instanceof PathContainer.PathSegment segment && !segment.valueToMatch().isEmpty()) {
+                path.append('/').append(segment.valueToMatch());
+            }
+        }
+        return path.toString();
+    }
+    
+    private static String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+}
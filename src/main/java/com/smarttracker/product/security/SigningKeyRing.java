@@ -0,0 +1,385 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.model.SigningKey;
+import com.smarttracker.product.repository.SigningKeyRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asymmetric token signing keys, indexed by {@code kid}.
+ *
+ * <p>Rotation overlaps in both directions:
+ * <ul>
+ *   <li>a new key is generated and published in the JWKS {@code publish-ahead}
+ *       before it starts signing, so verifiers that cache the JWKS already
+ *       know it when the first token signed with it arrives</li>
+ *   <li>a replaced key stays published until every token it signed has
+ *       expired, so rotation never invalidates a session</li>
+ * </ul>
+ * Keys are persisted, with the private key encrypted under a key derived from
+ * {@code jwt.signing.key-encryption-secret}, so every node signs with the same
+ * key and a restart keeps existing tokens valid. The secret has no default and
+ * startup fails without it. Each node reloads the ring
+ * every {@code refresh-interval}, and early, in the background, when it sees
+ * an unknown {@code kid}.
+ * Concurrent rotation by two nodes only adds an extra key that everyone
+ * accepts.
+ */
+@Component
+@Slf4j
+public class SigningKeyRing {
+    
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final long UNKNOWN_KID_RELOAD_MILLIS = 10_000;
+    
+    private final SigningKeyRepository repository;
+    private final String algorithm;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration tokenLifetime;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    
+    private volatile Ring ring = new Ring(List.of());
+    private volatile long lastReloadMillis;
+    
+    public SigningKeyRing(SigningKeyRepository repository,
+                          @Value("${jwt.signing.algorithm:ES256}") String algorithm,
+                          @Value("${jwt.signing.rotation-interval:30d}") Duration rotationInterval,
+                          @Value("${jwt.signing.publish-ahead:1d}") Duration publishAhead,
+                          @Value("${jwt.signing.key-encryption-secret:}") String keyEncryptionSecret,
+                          @Value("${jwt.expiration}") long accessExpirationMillis,
+                          @Value("${jwt.refresh-expiration}") long refreshExpirationMillis) {
+        if (!publishAhead.minus(rotationInterval).isNegative()) {
+            throw new IllegalArgumentException("jwt.signing.publish-ahead must be shorter than rotation-interval");
+        }
+        if (!StringUtils.hasText(keyEncryptionSecret)) {
+            throw new IllegalStateException("jwt.signing.key-encryption-secret (JWT_KEY_ENCRYPTION_SECRET) must be set");
+        }
+        this.repository = repository;
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.tokenLifetime = Duration.ofMillis(Math.max(accessExpirationMillis, refreshExpirationMillis));
+        this.keyEncryptionKey = deriveKey(keyEncryptionSecret);
+        signatureAlgorithm(algorithm); // fail fast on an unsupported value
+    }
+    
+    /**
+     * A ring with a single in-memory key and no persistence or rotation, for
+     * benchmarks and tests.
+     */
+    static SigningKeyRing inMemory(String algorithm) {
+        SigningKeyRing keyRing = new SigningKeyRing(null, algorithm, Duration.ofDays(30), Duration.ofDays(1),
+                "in-memory", 0, 0);
+        KeyPair keyPair = generateKeyPair(algorithm);
+        keyRing.ring = new Ring(List.of(new Key(UUID.randomUUID().toString(), signatureAlgorithm(algorithm),
+                keyPair.getPrivate(), keyPair.getPublic(), 0L)));
+        return keyRing;
+    }
+    
+    @PostConstruct
+    void init() {
+        if (repository != null) {
+            refresh();
+        }
+    }
+    
+    /**
+     * Reloads the ring, generating the next key once the active one is within
+     * {@code publish-ahead} of its rotation and dropping keys nothing valid was signed with.
+     */
+    @Scheduled(initialDelayString = "${jwt.signing.refresh-interval:1m}",
+               fixedDelayString = "${jwt.signing.refresh-interval:1m}")
+    public synchronized void refresh() {
+        if (repository == null) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<SigningKey> rows = new ArrayList<>(repository.findAllByOrderByActivatesAtAsc());
+        
+        LocalDateTime nextActivation = nextActivation(rows, now);
+        if (nextActivation != null) {
+            SigningKey created = repository.save(generate(nextActivation));
+            rows.add(created);
+            log.info("Generated signing key {} ({}), signing from {}", created.getId(), algorithm, nextActivation);
+        }
+        
+        List<SigningKey> retired = retired(rows, now);
+        if (!retired.isEmpty()) {
+            repository.deleteAll(retired);
+            rows.removeAll(retired);
+            log.info("Retired {} signing keys", retired.size());
+        }
+        
+        List<Key> keys = new ArrayList<>(rows.size());
+        for (SigningKey row : rows) {
+            keys.add(decode(row));
+        }
+        ring = new Ring(keys);
+        lastReloadMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * The key to sign new tokens with: the most recently activated one.
+     */
+    public Key activeKey() {
+        long now = System.currentTimeMillis();
+        List<Key> keys = ring.keys;
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            if (keys.get(i).activatesAtMillis <= now) {
+                return keys.get(i);
+            }
+        }
+        // Clock skew between nodes; any published key is acceptable to verifiers
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No token signing key available");
+        }
+        return keys.get(0);
+    }
+    
+    /**
+     * Returns the published key with this id, or {@code null}. Never blocks:
+     * it runs on the reactive stack's event loop, and anyone can send a token
+     * with a made-up {@code kid}. An unknown id starts a background reload (at
+     * most every few seconds) in case another node has just rotated, and is
+     * rejected until that reload has brought the key in. Keys are published
+     * {@code publish-ahead} before they sign, so this only happens after an
+     * overdue rotation.
+     */
+    public Key verificationKey(String kid) {
+        Key key = ring.byId.get(kid);
+        if (key == null && repository != null && reloadIsDue() && reloading.compareAndSet(false, true)) {
+            log.debug("Unknown signing key id {}, reloading key ring", kid);
+            Thread thread = new Thread(this::reloadForUnknownKey, "signing-key-reload");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return key;
+    }
+    
+    private void reloadForUnknownKey() {
+        try {
+            synchronized (this) {
+                // A scheduled refresh may have finished while this thread was starting
+                if (reloadIsDue()) {
+                    refresh();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload the signing key ring: {}", e.getMessage());
+        } finally {
+            reloading.set(false);
+        }
+    }
+    
+    private boolean reloadIsDue() {
+        return System.currentTimeMillis() - lastReloadMillis > UNKNOWN_KID_RELOAD_MILLIS;
+    }
+    
+    /**
+     * The public keys as a JWK Set ({@code {"keys": [...]}}).
+     */
+    public Map<String, Object> jwks() {
+        return ring.jwks;
+    }
+    
+    /**
+     * Changes whenever the published key set changes; usable as an ETag.
+     */
+    public String jwksVersion() {
+        return ring.version;
+    }
+    
+    private LocalDateTime nextActivation(List<SigningKey> rows, LocalDateTime now) {
+        if (rows.isEmpty()) {
+            return now;
+        }
+        LocalDateTime latest = rows.get(rows.size() - 1).getActivatesAt();
+        LocalDateTime rotation = latest.plus(rotationInterval);
+        if (now.isBefore(rotation.minus(publishAhead))) {
+            return null;
+        }
+        if (rotation.isBefore(now)) {
+            log.warn("Signing key rotation is overdue; the new key activates immediately without being pre-published");
+            return now;
+        }
+        return rotation;
+    }
+    
+    // A key is retired once its successor has been signing for longer than any token lives
+    private List<SigningKey> retired(List<SigningKey> rows, LocalDateTime now) {
+        List<SigningKey> retired = new ArrayList<>();
+        for (int i = 0; i < rows.size() - 1; i++) {
+            LocalDateTime replacedAt = rows.get(i + 1).getActivatesAt();
+            if (replacedAt.plus(tokenLifetime).isBefore(now)) {
+                retired.add(rows.get(i));
+            }
+        }
+        return retired;
+    }
+    
+    private SigningKey generate(LocalDateTime activatesAt) {
+        String kid = UUID.randomUUID().toString();
+        KeyPair keyPair = generateKeyPair(algorithm);
+        return SigningKey.builder()
+                .id(kid)
+                .algorithm(algorithm)
+                .publicKey(keyPair.getPublic().getEncoded())
+                .privateKey(encrypt(kid, keyPair.getPrivate().getEncoded()))
+                .activatesAt(activatesAt)
+                .build();
+    }
+    
+    private Key decode(SigningKey row) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm(row.getAlgorithm()));
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(row.getPublicKey()));
+            PrivateKey privateKey = keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(decrypt(row.getId(), row.getPrivateKey())));
+            long activatesAt = row.getActivatesAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new Key(row.getId(), signatureAlgorithm(row.getAlgorithm()), privateKey, publicKey, activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load signing key " + row.getId()
+                    + "; check jwt.signing.key-encryption-secret", e);
+        }
+    }
+    
+    // iv || ciphertext, with the kid as associated data so rows cannot be swapped
+    private byte[] encrypt(String kid, byte[] plaintext) {
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key", e);
+        }
+    }
+    
+    private byte[] decrypt(String kid, byte[] encrypted) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey,
+                new GCMParameterSpec(GCM_TAG_BITS, encrypted, 0, GCM_IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(encrypted, GCM_IV_BYTES, encrypted.length - GCM_IV_BYTES);
+    }
+    
+    private static SecretKey deriveKey(String secret) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(hash, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static KeyPair generateKeyPair(String algorithm) {
+        try {
+            if ("ES256".equals(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key pair", e);
+        }
+    }
+    
+    private static String keyFactoryAlgorithm(String algorithm) {
+        return "ES256".equals(algorithm) ? "EC" : "Ed25519";
+    }
+    
+    private static SignatureAlgorithm signatureAlgorithm(String algorithm) {
+        return switch (algorithm) {
+            case "ES256" -> Jwts.SIG.ES256;
+            case "EdDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalArgumentException(
+                    "Unsupported jwt.signing.algorithm: " + algorithm + " (use ES256 or EdDSA)");
+        };
+    }
+    
+    /**
+     * A signing key pair. {@code signatureAlgorithm} is what tokens signed with it declare in {@code alg}.
+     */
+    public record Key(String id, SignatureAlgorithm signatureAlgorithm, PrivateKey privateKey,
+                      PublicKey publicKey, long activatesAtMillis) {
+        
+        @Override
+        public String toString() {
+            return "Key[id=" + id + ", alg=" + signatureAlgorithm.getId() + "]";
+        }
+    }
+    
+    // Immutable snapshot, swapped atomically on reload
+    private static final class Ring {
+        
+        final List<Key> keys;
+        final Map<String, Key> byId = new HashMap<>();
+        final Map<String, Object> jwks;
+        final String version;
+        
+        Ring(List<Key> keys) {
+            this.keys = keys.stream()
+                    .sorted(Comparator.comparingLong(Key::activatesAtMillis))
+                    .toList();
+            
+            List<Map<String, Object>> published = new ArrayList<>();
+            for (Key key : this.keys) {
+                byId.put(key.id(), key);
+                published.add(new LinkedHashMap<>(Jwks.builder()
+                        .key(key.publicKey())
+                        .id(key.id())
+                        .algorithm(key.signatureAlgorithm().getId())
+                        .publicKeyUse("sig")
+                        .build()));
+            }
+            this.jwks = Map.of("keys", List.copyOf(published));
+            this.version = Integer.toHexString(Arrays.hashCode(byId.keySet().stream().sorted().toArray()));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.smarttracker.product.security;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. It is implemented as GCRA (virtual scheduling),
+ * which admits exactly what a bucket of {@code capacity} tokens refilled
+ * evenly over {@code period} admits. The whole state is one {@code long},
+ * the theoretical arrival time, updated with a CAS loop, so concurrent
+ * requests never block each other and a bucket costs a few dozen bytes.
+ */
+final class TokenBucket {
+    
+    // Monotonic, non-negative clock so a fresh bucket (state 0) starts full
+    private static final long EPOCH = System.nanoTime();
+    
+    private final AtomicLong theoreticalArrival = new AtomicLong();
+    
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until a token is available
+     */
+    long tryAcquire(Limit limit) {
+        long now = System.nanoTime() - EPOCH;
+        
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + limit.emissionIntervalNanos;
+            long waitNanos = next - now - limit.burstNanos;
+            
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * {@code capacity} requests per {@code period}, all of which may arrive in a burst.
+     * Parsed from {@code "<capacity>/<period>"}, e.g. {@code "10/1m"}; a capacity of 0 disables the limit.
+     */
+    record Limit(int capacity, Duration period, long emissionIntervalNanos, long burstNanos) {
+        
+        static Limit parse(String spec) {
+            String[] parts = spec.trim().split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected <capacity>/<period>, e.g. 10/1m, got: " + spec);
+            }
+            int capacity = Integer.parseInt(parts[0].trim());
+            Duration period = DurationStyle.detectAndParse(parts[1].trim());
+            long interval = capacity > 0 ? period.toNanos() / capacity : 0;
+            return new Limit(capacity, period, interval, interval * capacity);
+        }
+        
+        boolean enabled() {
+            return capacity > 0;
+        }
+        
+        @Override
+        public String toString() {
+            return capacity + "/" + period;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.smarttracker.product.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Denylist of revoked token ids ({@code jti}), stored in buckets keyed by
+ * expiry time like a timing wheel. A token's bucket follows from its own
+ * {@code exp}, so a membership check is two hash lookups. Once the end of a
+ * bucket has passed, every token in it has expired and the whole bucket is
+ * dropped without visiting its entries. Memory therefore stays proportional
+ * to revocations that are still live.
+ *
+ * <p>The buckets are snapshotted to {@code snapshot-file} periodically and
+ * on shutdown, and reloaded at startup, so a restart does not resurrect
+ * revoked tokens.
+ */
+@Component
+@Slf4j
+public class TokenDenylist {
+    
+    private static final int SNAPSHOT_MAGIC = 0x544B444C; // "TKDL"
+    private static final int SNAPSHOT_VERSION = 1;
+    
+    private final long bucketWidthMillis;
+    private final Path snapshotFile;
+    private final ConcurrentNavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    
+    public TokenDenylist(MeterRegistry meterRegistry,
+                         @Value("${app.security.denylist.bucket-width:1m}") Duration bucketWidth,
+                         @Value("${app.security.denylist.snapshot-file:}") String snapshotFile) {
+        this.bucketWidthMillis = bucketWidth.toMillis();
+        this.snapshotFile = StringUtils.hasText(snapshotFile) ? Path.of(snapshotFile) : null;
+        
+        Gauge.builder("security.token.denylist.entries", this, TokenDenylist::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+        Gauge.builder("security.token.denylist.buckets", buckets, Map::size)
+                .register(meterRegistry);
+    }
+    
+    public void revoke(String tokenId, Date expiration) {
+        if (tokenId == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return; // already unusable
+        }
+        buckets.computeIfAbsent(bucketOf(expiration.getTime()), key -> ConcurrentHashMap.newKeySet())
+                .add(tokenId);
+        dirty.set(true);
+    }
+    
+    public boolean isRevoked(String tokenId, Date expiration) {
+        if (tokenId == null || expiration == null) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(expiration.getTime()));
+        return bucket != null && bucket.contains(tokenId);
+    }
+    
+    public long size() {
+        long size = 0;
+        for (Set<String> bucket : buckets.values()) {
+            size += bucket.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Drops every bucket whose tokens have all expired.
+     */
+    @Scheduled(fixedDelayString = "${app.security.denylist.bucket-width:1m}")
+    public void purgeExpired() {
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(bucketOf(System.currentTimeMillis()));
+        if (!expired.isEmpty()) {
+            expired.clear();
+            dirty.set(true);
+        }
+    }
+    
+    @PostConstruct
+    void loadSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return;
+        }
+        
+        long currentBucket = bucketOf(System.currentTimeMillis());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring token denylist snapshot with unknown format: {}", snapshotFile);
+                return;
+            }
+            
+            int bucketCount = in.readInt();
+            for (int i = 0; i < bucketCount; i++) {
+                long key = in.readLong();
+                int entries = in.readInt();
+                Set<String> bucket = key >= currentBucket ? ConcurrentHashMap.newKeySet(entries) : null;
+                for (int j = 0; j < entries; j++) {
+                    String tokenId = in.readUTF();
+                    if (bucket != null) {
+                        bucket.add(tokenId);
+                    }
+                }
+                if (bucket != null && !bucket.isEmpty()) {
+                    buckets.put(key, bucket);
+                }
+            }
+            log.info("Loaded {} revoked tokens from {}", size(), snapshotFile);
+        } catch (IOException e) {
+            log.error("Failed to load token denylist snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.security.denylist.snapshot-interval:30s}")
+    public void snapshot() {
+        if (snapshotFile == null || !dirty.getAndSet(false)) {
+            return;
+        }
+        
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                Map<Long, Set<String>> view = Map.copyOf(buckets);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(view.size());
+                for (Map.Entry<Long, Set<String>> bucket : view.entrySet()) {
+                    String[] tokenIds = bucket.getValue().toArray(String[]::new);
+                    out.writeLong(bucket.getKey());
+                    out.writeInt(tokenIds.length);
+                    for (String tokenId : tokenIds) {
+                        out.writeUTF(tokenId);
+                    }
+                }
+            }
+            
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("Failed to write token denylist snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    void snapshotOnShutdown() {
+        snapshot();
+    }
+    
+    // Bucket k holds tokens expiring in ((k - 1) * width, k * width]; it can be dropped once k * width has passed
+    private long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis + bucketWidthMillis - 1, bucketWidthMillis);
+    }
+}
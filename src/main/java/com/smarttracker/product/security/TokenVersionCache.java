@@ -0,0 +1,102 @@
+package com.smarttracker.product.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.util.CacheLoads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of each user's current token version, used in claims-only
+ * authentication mode to reject tokens issued before a revocation. A miss
+ * costs one single-column primary key lookup. A revocation takes effect on
+ * this node immediately; revocations made on another node become visible here
+ * once the entry expires, which is within {@code jwt.token-version.ttl}.
+ */
+@Component
+@Slf4j
+public class TokenVersionCache {
+    
+    // Stored for users that no longer exist so every version check fails
+    private static final int NO_USER = -1;
+    
+    private final UserRepository userRepository;
+    private final UserCacheEvictionListener cacheEvictionListener;
+    private final AsyncCache<Long, Integer> cache;
+    
+    public TokenVersionCache(UserRepository userRepository,
+                             UserCacheEvictionListener cacheEvictionListener,
+                             MeterRegistry meterRegistry,
+                             @Value("${jwt.token-version.maximum-size:100000}") long maximumSize,
+                             @Value("${jwt.token-version.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cacheEvictionListener = cacheEvictionListener;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.token-versions");
+    }
+    
+    public boolean isCurrent(Long userId, Integer tokenVersion) {
+        if (userId == null || tokenVersion == null) {
+            return false;
+        }
+        // Loaded outside the cache's locks, so a miss does not pin a virtual thread's carrier
+        return tokenVersion.equals(CacheLoads.getOrLoad(cache, userId,
+                id -> userRepository.findTokenVersionById(id).orElse(NO_USER)));
+    }
+    
+    /**
+     * Non-blocking {@link #isCurrent} for the reactive stack. The loader runs an
+     * asynchronous query and completes with {@code null} if the user is gone.
+     */
+    public CompletableFuture<Boolean> isCurrentAsync(Long userId, Integer tokenVersion,
+                                                     Function<Long, CompletableFuture<Integer>> loader) {
+        if (userId == null || tokenVersion == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return cache.get(userId, (id, executor) -> loader.apply(id)
+                        .thenApply(version -> version != null ? version : NO_USER))
+                .thenApply(tokenVersion::equals);
+    }
+    
+    /**
+     * Invalidates every token issued to the user so far: access tokens, opaque
+     * tokens and refresh tokens all carry the version they were issued under.
+     * Called when a rotated refresh token is presented again.
+     *
+     * <p>The version is bumped by a single UPDATE, so two concurrent
+     * revocations both count. The bulk update bypasses
+     * {@link UserCacheEvictionListener}, so the cached principal and version
+     * are evicted here, now and again after commit.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        if (userRepository.incrementTokenVersion(userId) == 0) {
+            return;
+        }
+        
+        userRepository.findById(userId).ifPresentOrElse(
+                user -> cacheEvictionListener.evict(userId, user.getUsername(), user.getEmail()),
+                () -> cacheEvictionListener.evict(userId, null, null));
+        log.info("Revoked all tokens for user id: {}", userId);
+    }
+    
+    public void evict(Long userId) {
+        if (userId != null) {
+            cache.synchronous().invalidate(userId);
+        }
+    }
+}
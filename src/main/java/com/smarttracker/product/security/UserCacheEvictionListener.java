@@ -0,0 +1,69 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link UserPrincipalCache} and
+ * {@link TokenVersionCache} in step with the {@code users} table. Every
+ * change made through {@code UserRepository} (save, disable, lock, delete)
+ * flushes through here. Principals and token versions are evicted at flush
+ * time and again after commit, so a concurrent request cannot re-cache the
+ * pre-commit row. Bulk JPQL updates bypass entity listeners and call
+ * {@link #evict} themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+    
+    // Resolved lazily: Hibernate instantiates listeners while the EntityManagerFactory is being built
+    private final ObjectProvider<UserPrincipalCache> userPrincipalCache;
+    private final ObjectProvider<TokenVersionCache> tokenVersionCache;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        evict(user.getId(), user.getUsername(), user.getEmail());
+    }
+    
+    /**
+     * Evicts the user's cached principal and token version now and, inside a
+     * transaction, again after commit.
+     */
+    public void evict(Long id, String username, String email) {
+        TokenVersionCache versions = tokenVersionCache.getIfAvailable();
+        UserPrincipalCache cache = userPrincipalCache.getIfAvailable();
+        
+        evict(versions, cache, id, username, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(versions, cache, id, username, email);
+                }
+            });
+        }
+    }
+    
+    private static void evict(TokenVersionCache versions, UserPrincipalCache cache,
+                              Long id, String username, String email) {
+        if (versions != null) {
+            versions.evict(id);
+        }
+        if (cache != null) {
+            cache.evict(username);
+            cache.evict(email);
+            if (id != null) {
+                cache.evict(UserPrincipalCache.idKey(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.smarttracker.product.security;
+
+import com.smarttracker.product.model.User;
+import lombok.Builder;
+import lombok.ToString;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a {@link User} used as the authenticated principal.
+ * Detached from the persistence context so it can be shared through
+ * {@link UserPrincipalCache}. It deliberately does not implement
+ * {@code CredentialsContainer}: erasing credentials after login would wipe
+ * the password hash from the cached instance.
+ */
+@Value
+@Builder(toBuilder = true)
+public class UserPrincipal implements UserDetails {
+    
+    Long id;
+    String username;
+    String email;
+    String firstName;
+    String lastName;
+    LocalDateTime createdAt;
+    
+    @ToString.Exclude
+    String password;
+    
+    Collection<? extends GrantedAuthority> authorities;
+    boolean enabled;
+    boolean accountNonExpired;
+    boolean accountNonLocked;
+    boolean credentialsNonExpired;
+    int tokenVersion;
+    
+    public static UserPrincipal from(User user) {
+        return UserPrincipal.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .createdAt(user.getCreatedAt())
+                .password(user.getPassword())
+                .authorities(List.copyOf(user.getAuthorities()))
+                .enabled(user.isEnabled())
+                .accountNonExpired(user.isAccountNonExpired())
+                .accountNonLocked(user.isAccountNonLocked())
+                .credentialsNonExpired(user.isCredentialsNonExpired())
+                .tokenVersion(user.getTokenVersion())
+                .build();
+    }
+}
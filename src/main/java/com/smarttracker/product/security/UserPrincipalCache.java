@@ -0,0 +1,110 @@
+package com.smarttracker.product.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.util.CacheLoads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-based cache of {@link UserPrincipal} snapshots keyed by
+ * the username or email used to look them up, or by {@link #idKey user id}.
+ * Concurrent misses for the same key block on a single load, so a burst of
+ * requests for one user issues one query, run outside the cache's internal
+ * locks (see {@link CacheLoads}). Entries are evicted by
+ * {@link UserCacheEvictionListener} whenever a user is persisted, updated or
+ * removed.
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+    
+    private final AsyncCache<String, UserPrincipal> cache;
+    private final Timer loadTimer;
+    
+    public UserPrincipalCache(MeterRegistry meterRegistry,
+                              @Value("${app.security.user-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${app.security.user-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.loadTimer = Timer.builder("security.user.load")
+                .description("Time to load a user principal from the database on a cache miss")
+                .register(meterRegistry);
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "security.user-principals");
+        log.debug("User principal cache maximum size: {}, ttl: {}", maximumSize, ttl);
+    }
+    
+    /**
+     * Returns the cached principal for the key, invoking the loader at most once
+     * per key even under concurrent misses. Exceptions thrown by the loader are
+     * propagated and nothing is cached. {@code sourceListener} is told whether
+     * the principal was cached, loaded here, or loaded by a concurrent caller.
+     */
+    public UserPrincipal get(String usernameOrEmail, Function<String, UserPrincipal> loader,
+                             Consumer<CacheLoads.Source> sourceListener) {
+        return CacheLoads.getOrLoad(cache, usernameOrEmail, key -> loadTimer.record(() -> loader.apply(key)),
+                sourceListener);
+    }
+    
+    /**
+     * Non-blocking {@link #get} for the reactive stack. The loader starts an
+     * asynchronous query and must not block; concurrent misses share its
+     * future. A loader completing with {@code null} (no such user) caches
+     * nothing and yields {@code null}. {@code sourceListener} is called as
+     * for {@link #get}, before the returned future completes.
+     */
+    public CompletableFuture<UserPrincipal> getAsync(String usernameOrEmail,
+                                                     Function<String, CompletableFuture<UserPrincipal>> loader,
+                                                     Consumer<CacheLoads.Source> sourceListener) {
+        boolean[] invoked = new boolean[1];
+        CompletableFuture<UserPrincipal> future = cache.get(usernameOrEmail, (key, executor) -> {
+            invoked[0] = true;
+            long start = System.nanoTime();
+            return loader.apply(key).whenComplete((user, e) ->
+                    loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+        sourceListener.accept(CacheLoads.Source.of(future, invoked[0]));
+        return future;
+    }
+    
+    public void evict(User user) {
+        evict(user.getUsername());
+        evict(user.getEmail());
+        if (user.getId() != null) {
+            evict(idKey(user.getId()));
+        }
+    }
+    
+    /**
+     * Cache key for a lookup by user id. Cannot collide with a username
+     * (letters, digits, {@code ._-}) or an email.
+     */
+    public static String idKey(Long userId) {
+        return "#" + userId;
+    }
+    
+    public void evict(String usernameOrEmail) {
+        if (usernameOrEmail != null) {
+            cache.synchronous().invalidate(usernameOrEmail);
+        }
+    }
+    
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
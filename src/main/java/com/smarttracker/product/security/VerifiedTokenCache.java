@@ -0,0 +1,109 @@
+package com.smarttracker.product.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache from a SHA-256 digest of a token to its verified claims.
+ * A token seen before costs one hash and one map lookup instead of an HMAC
+ * check and JSON parse. Entries expire no later than the token's {@code exp},
+ * so an expired token always falls through to {@link JwtUtil#parseClaims}
+ * and fails there. Only successfully verified tokens are cached.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+    
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    
+    private final JwtUtil jwtUtil;
+    private final boolean enabled;
+    private final Cache<String, Claims> cache;
+    
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              MeterRegistry meterRegistry,
+                              @Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.maximum-size:100000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+        log.debug("Verified token cache enabled: {}, maximum size: {}", enabled, maximumSize);
+    }
+    
+    /**
+     * Returns the verified claims for the token, verifying it only on a cache miss.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is not cached and fails verification
+     */
+    public Claims getVerifiedClaims(String token) {
+        if (!enabled) {
+            return jwtUtil.parseClaims(token);
+        }
+        
+        return cache.get(digest(token), key -> jwtUtil.parseClaims(token));
+    }
+    
+    /**
+     * Drops the cached claims for a token so the next use is verified again.
+     */
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    private static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+    
+    private static final class ExpireAtTokenExpiry implements Expiry<String, Claims> {
+        
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return 0L; // never cache tokens without an expiry
+            }
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remainingMillis));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
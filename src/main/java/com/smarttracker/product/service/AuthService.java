@@ -9,5 +9,5 @@ public interface AuthService {
     
     LoginResponseDTO.Tokens refreshToken(String refreshToken);
     
-    void logout(String username);
+    void logout(String username, String accessToken);
 }
\ No newline at end of file
@@ -1,44 +1,67 @@
 package com.smarttracker.product.service.impl;
 
+import com.smarttracker.product.audit.AuthAuditLog;
+import com.smarttracker.product.dto.AuthAuditEvent;
 import com.smarttracker.product.dto.LoginRequestDTO;
 import com.smarttracker.product.dto.LoginResponseDTO;
 import com.smarttracker.product.dto.UserResponseDTO;
 import com.smarttracker.product.exception.AuthenticationFailedException;
+import com.smarttracker.product.exception.ServiceBusyException;
 import com.smarttracker.product.mapper.UserMapper;
-import com.smarttracker.product.model.User;
-import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.security.AuthMetrics;
 import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.OpaqueTokenService;
+import com.smarttracker.product.security.TokenDenylist;
+import com.smarttracker.product.security.UserPrincipal;
+import com.smarttracker.product.security.VerifiedTokenCache;
 import com.smarttracker.product.service.AuthService;
+import com.smarttracker.product.service.LastLoginRecorder;
+import com.smarttracker.product.service.RefreshTokenService;
+import com.smarttracker.product.util.LogThrottle;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
     
+    // Failures arrive in floods (credential stuffing, replayed tokens), so only a sample is logged
+    private static final LogThrottle LOGIN_FAILURE_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle LOGIN_ERROR_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle REFRESH_FAILURE_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle REFRESH_ERROR_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenDenylist tokenDenylist;
     private final UserDetailsService userDetailsService;
-    private final UserRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final LastLoginRecorder lastLoginRecorder;
     private final UserMapper userMapper;
+    private final AuthMetrics authMetrics;
+    private final OpaqueTokenService opaqueTokenService;
+    private final AuthAuditLog authAuditLog;
     
     @Override
-    @Transactional
     public LoginResponseDTO authenticate(LoginRequestDTO request) {
-        log.info("Authentication attempt for: {}", request.getUsernameOrEmail());
+        log.debug("Authentication attempt for: {}", request.getUsernameOrEmail());
         
+        long start = System.nanoTime();
         try {
             // Authenticate user
             Authentication authentication = authenticationManager.authenticate(
@@ -47,84 +70,162 @@ public class AuthServiceImpl implements AuthService {
                             request.getPassword()
                     )
             );
+            long authenticated = System.nanoTime();
+            authMetrics.recordLoginStage(AuthMetrics.LoginStage.AUTHENTICATE, authenticated - start);
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
             
-            // Load user details
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            
-            // Generate tokens
-            String accessToken = jwtUtil.generateToken(userDetails);
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+            // Principal snapshot loaded by DaoAuthenticationProvider; no second lookup needed
+            UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
             
-            // Update user's last login
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new AuthenticationFailedException("User not found after authentication"));
+            // Generate tokens; each login starts a new refresh token family
+            RefreshTokenService.IssuedToken refreshToken = refreshTokenService.issue(user);
+            String accessToken = issueAccessToken(user, refreshToken.familyId());
+            long issued = System.nanoTime();
+            authMetrics.recordLoginStage(AuthMetrics.LoginStage.ISSUE_TOKENS, issued - authenticated);
             
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            // Update user's last login (buffered and written in batches)
+            LocalDateTime loginTime = LocalDateTime.now();
+            lastLoginRecorder.record(user.getId(), loginTime);
+            authMetrics.recordLoginStage(AuthMetrics.LoginStage.RECORD_LAST_LOGIN, System.nanoTime() - issued);
             
-            log.info("User authenticated successfully: {}", user.getUsername());
+            log.debug("User authenticated successfully: {}", user.getUsername());
             
             // Build response
-            UserResponseDTO userResponse = userMapper.toDTO(user);
+            UserResponseDTO userResponse = userMapper.toDTO(user, loginTime);
             
-            return LoginResponseDTO.builder()
+            LoginResponseDTO response = LoginResponseDTO.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken)
+                    .refreshToken(refreshToken.refreshToken())
                     .tokenType("Bearer")
                     .expiresIn(jwtUtil.getExpirationTime())
                     .user(userResponse)
                     .build();
-                    
+            
+            authMetrics.recordLogin(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, user.getId(),
+                    user.getUsername());
+            return response;
+        
         } catch (BadCredentialsException e) {
-            log.warn("Invalid credentials for: {}", request.getUsernameOrEmail());
+            authMetrics.recordLogin(AuthMetrics.Outcome.BAD_CREDENTIALS, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.BAD_CREDENTIALS, null,
+                    request.getUsernameOrEmail());
+            long suppressed = LOGIN_FAILURE_LOG.tryAcquire();
+            if (suppressed >= 0) {
+                log.warn("Invalid credentials for: {}{}", request.getUsernameOrEmail(),
+                        LogThrottle.suppressedNote(suppressed));
+            }
             throw new AuthenticationFailedException("Invalid username or password");
         } catch (Exception e) {
-            log.error("Authentication failed for {}: {}", 
-                    request.getUsernameOrEmail(), e.getMessage());
+            AuthMetrics.Outcome outcome = AuthMetrics.Outcome.of(e);
+            authMetrics.recordLogin(outcome, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.LOGIN, outcome, null, request.getUsernameOrEmail());
+            
+            // Overload (hashing pool or connection bulkhead full) is reported as 503, not 401
+            ServiceBusyException busy = ServiceBusyException.findIn(e);
+            if (busy != null) {
+                throw busy;
+            }
+            
+            long suppressed = LOGIN_ERROR_LOG.tryAcquire();
+            if (suppressed >= 0) {
+                log.error("Authentication failed for {}: {}{}", request.getUsernameOrEmail(), e.getMessage(),
+                        LogThrottle.suppressedNote(suppressed));
+            }
             throw new AuthenticationFailedException("Authentication failed: " + e.getMessage());
         }
     }
     
     @Override
     public LoginResponseDTO.Tokens refreshToken(String refreshToken) {
+        long start = System.nanoTime();
+        String username = null;
+        UserPrincipal user = null;
         try {
-            // Validate refresh token
-            String username = jwtUtil.extractUsername(refreshToken);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Validate refresh token (verified and parsed once)
+            Claims claims = jwtUtil.parseClaims(refreshToken);
+            username = claims.getSubject();
             
-            if (!jwtUtil.validateToken(refreshToken, userDetails)) {
+            // Served from the principal cache; also rejects disabled and locked accounts
+            user = (UserPrincipal) userDetailsService.loadUserByUsername(username);
+            
+            if (!jwtUtil.isTokenValid(claims, user)) {
                 throw new AuthenticationFailedException("Invalid refresh token");
             }
             
-            // Generate new tokens
-            String newAccessToken = jwtUtil.generateToken(userDetails);
-            String newRefreshToken = jwtUtil.generateRefreshToken(userDetails);
+            // Rotate within the family; a replayed token revokes the family
+            RefreshTokenService.IssuedToken newRefreshToken = refreshTokenService.rotate(claims, user);
+            String newAccessToken = issueAccessToken(user, newRefreshToken.familyId());
             
-            log.info("Token refreshed successfully for user: {}", username);
+            log.debug("Token refreshed successfully for user: {}", username);
+            authMetrics.recordRefresh(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.REFRESH, AuthMetrics.Outcome.SUCCESS, user.getId(), username);
             
             return LoginResponseDTO.Tokens.builder()
                     .accessToken(newAccessToken)
-                    .refreshToken(newRefreshToken)
+                    .refreshToken(newRefreshToken.refreshToken())
                     .tokenType("Bearer")
                     .expiresIn(jwtUtil.getExpirationTime())
                     .build();
-                    
+        
+        } catch (AuthenticationFailedException e) {
+            authMetrics.recordRefresh(AuthMetrics.Outcome.REJECTED, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.REFRESH, AuthMetrics.Outcome.REJECTED,
+                    user == null ? null : user.getId(), username);
+            long suppressed = REFRESH_FAILURE_LOG.tryAcquire();
+            if (suppressed >= 0) {
+                log.warn("Token refresh rejected: {}{}", e.getMessage(), LogThrottle.suppressedNote(suppressed));
+            }
+            throw e;
         } catch (Exception e) {
-            log.error("Token refresh failed: {}", e.getMessage());
+            AuthMetrics.Outcome outcome = AuthMetrics.Outcome.of(e);
+            authMetrics.recordRefresh(outcome, System.nanoTime() - start);
+            authAuditLog.record(AuthAuditEvent.Type.REFRESH, outcome, user == null ? null : user.getId(), username);
+            
+            ServiceBusyException busy = ServiceBusyException.findIn(e);
+            if (busy != null) {
+                throw busy;
+            }
+            
+            long suppressed = REFRESH_ERROR_LOG.tryAcquire();
+            if (suppressed >= 0) {
+                log.error("Token refresh failed: {}{}", e.getMessage(), LogThrottle.suppressedNote(suppressed));
+            }
             throw new AuthenticationFailedException("Token refresh failed: " + e.getMessage());
         }
     }
     
     @Override
-    public void logout(String username) {
-        // In a real application, you might:
-        // 1. Add token to blacklist (Redis)
-        // 2. Clear user session
-        // 3. Update logout timestamp
+    public void logout(String username, String accessToken) {
+        if (accessToken != null) {
+            String familyId;
+            if (opaqueTokenService.isOpaque(accessToken)) {
+                // Removed from the session table; no denylist entry needed
+                familyId = opaqueTokenService.revoke(accessToken);
+            } else {
+                // Already verified by the filter, so this is a cache hit
+                Claims claims = verifiedTokenCache.getVerifiedClaims(accessToken);
+                tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+                familyId = jwtUtil.extractFamilyId(claims);
+            }
+            
+            if (familyId != null) {
+                refreshTokenService.revokeFamily(familyId);
+            }
+        }
         
-        log.info("User logged out: {}", username);
+        authAuditLog.record(AuthAuditEvent.Type.LOGOUT, AuthMetrics.Outcome.SUCCESS, null, username);
+        log.debug("User logged out: {}", username);
         SecurityContextHolder.clearContext();
     }
+    
+    /**
+     * Opaque reference token when that mode is on and the session table has
+     * room, otherwise a JWT.
+     */
+    private String issueAccessToken(UserPrincipal user, String familyId) {
+        String opaqueToken = opaqueTokenService.issue(user, familyId, jwtUtil.getExpirationTime());
+        return opaqueToken != null ? opaqueToken : jwtUtil.generateToken(user, familyId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.smarttracker.product.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for {@code users.last_login}. Logins only record the
+ * timestamp in memory. Repeated logins by the same user collapse into one
+ * pending entry holding the latest time. Pending entries are flushed
+ * periodically, and on shutdown, as JDBC batched UPDATEs. The updates go
+ * around the entity, so they do not evict cached principals or touch
+ * {@code updated_at}.
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+    
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login = ? WHERE id = ? AND (last_login IS NULL OR last_login < ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter failedRows;
+    
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        
+        this.flushTimer = Timer.builder("users.last.login.flush")
+                .description("Time to write one batch of pending last-login updates")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("users.last.login.flushed").register(meterRegistry);
+        this.failedRows = Counter.builder("users.last.login.failed").register(meterRegistry);
+        Gauge.builder("users.last.login.pending", pending, Map::size)
+                .description("Users with a buffered last-login timestamp")
+                .register(meterRegistry);
+    }
+    
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (existing, latest) -> latest.isAfter(existing) ? latest : existing);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.security.last-login.flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime == null) {
+                continue;
+            }
+            Timestamp timestamp = Timestamp.valueOf(loginTime);
+            batch.add(new Object[] {timestamp, userId, timestamp});
+            
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending last-login updates before shutdown", pending.size());
+        flush();
+    }
+    
+    private void write(List<Object[]> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+            flushedRows.increment(batch.size());
+        } catch (RuntimeException e) {
+            // Put the timestamps back so the next flush retries them
+            for (Object[] row : batch) {
+                record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime());
+            }
+            failedRows.increment(batch.size());
+            log.error("Failed to flush {} last-login updates: {}", batch.size(), e.getMessage());
+        }
+    }
+}
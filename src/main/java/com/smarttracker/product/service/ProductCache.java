@@ -0,0 +1,70 @@
+package com.smarttracker.product.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smarttracker.product.dto.ProductResponse;
+import com.smarttracker.product.util.CacheLoads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of products by id for single-product fetches.
+ * Concurrent misses for one product share a single query (see
+ * {@link CacheLoads}), and a missing product is not cached. Entries are
+ * evicted by {@link ProductCacheEvictionListener} whenever a product is
+ * inserted, updated or deleted, but only on the node that made the change.
+ * With several nodes, the others keep serving the old product until the
+ * entry expires, so the TTL bounds how stale a read can be; the same goes
+ * for changes made outside JPA. Updates are checked against the version
+ * the client sends, so a stale read cannot overwrite a newer product.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+    
+    private final AsyncCache<Long, ProductResponse> cache;
+    private final Timer loadTimer;
+    
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${app.catalog.cache.maximum-size:100000}") long maximumSize,
+                        @Value("${app.catalog.cache.ttl:1m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.loadTimer = Timer.builder("catalog.product.load")
+                .description("Time to load a product from the database on a cache miss")
+                .register(meterRegistry);
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog.products");
+        log.debug("Product cache maximum size: {}, ttl: {}", maximumSize, ttl);
+    }
+    
+    /**
+     * Returns the cached product, invoking the loader at most once per id even
+     * under concurrent misses. Exceptions thrown by the loader are propagated
+     * and nothing is cached.
+     */
+    public ProductResponse get(Long productId, Function<Long, ProductResponse> loader) {
+        return CacheLoads.getOrLoad(cache, productId, id -> loadTimer.record(() -> loader.apply(id)));
+    }
+    
+    public void evict(Long productId) {
+        if (productId != null) {
+            // Also discards a load in flight, so a read that began before the change cannot re-cache it
+            cache.synchronous().invalidate(productId);
+        }
+    }
+    
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
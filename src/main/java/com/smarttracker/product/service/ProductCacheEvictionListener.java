@@ -0,0 +1,47 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link ProductCache} in step with the
+ * {@code products} table, like {@code UserCacheEvictionListener} does for
+ * users. Products are evicted at flush time and again after commit, so a
+ * concurrent read cannot re-cache the pre-commit row.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheEvictionListener {
+    
+    // Resolved lazily: Hibernate instantiates listeners while the EntityManagerFactory is being built
+    private final ObjectProvider<ProductCache> productCache;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductChanged(Product product) {
+        ProductCache cache = productCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        
+        Long id = product.getId();
+        cache.evict(id);
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.dto.ProductPage;
+import com.smarttracker.product.dto.ProductRequest;
+import com.smarttracker.product.dto.ProductResponse;
+
+/**
+ * The product catalog. Every product belongs to the user who created it, and
+ * the owner-scoped methods treat another user's product as not found.
+ */
+public interface ProductService {
+    
+    ProductResponse createProduct(Long ownerId, ProductRequest request);
+    
+    /**
+     * Served from the product cache after the first read.
+     *
+     * @throws com.smarttracker.product.exception.ResourceNotFoundException if the
+     *         product does not exist or belongs to someone else
+     */
+    ProductResponse getProduct(Long ownerId, Long productId);
+    
+    /**
+     * Replaces the product if it is still at the request's {@code version}.
+     *
+     * @throws IllegalArgumentException if the request carries no version
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the
+     *         product was changed since the client read that version
+     */
+    ProductResponse updateProduct(Long ownerId, Long productId, ProductRequest request);
+    
+    void deleteProduct(Long ownerId, Long productId);
+    
+    /**
+     * The owner's products, most recently updated first, a page at a time.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    ProductPage listProducts(Long ownerId, String cursor, int size);
+    
+    /**
+     * Every product in id order, a page at a time.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    ProductPage listAllProducts(String cursor, int size);
+}
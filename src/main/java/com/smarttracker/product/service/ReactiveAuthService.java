@@ -0,0 +1,14 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.dto.LoginRequestDTO;
+import com.smarttracker.product.dto.LoginResponseDTO;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveAuthService {
+    
+    Mono<LoginResponseDTO> authenticate(LoginRequestDTO request);
+    
+    Mono<LoginResponseDTO.Tokens> refreshToken(String refreshToken);
+    
+    Mono<Void> logout(String username, String accessToken);
+}
@@ -0,0 +1,14 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.dto.RegisterRequest;
+import com.smarttracker.product.dto.UserResponseDTO;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+    
+    Mono<UserResponseDTO> registerUser(RegisterRequest request);
+    
+    Mono<Boolean> existsByUsername(String username);
+    
+    Mono<Boolean> existsByEmail(String email);
+}
@@ -0,0 +1,24 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+
+public interface RefreshTokenService {
+    
+    /**
+     * Starts a new token family for a fresh login.
+     */
+    IssuedToken issue(UserPrincipal user);
+    
+    /**
+     * Exchanges a verified refresh token for the next token of its family.
+     * Presenting a token that was already rotated revokes the whole family
+     * and every access token issued to the user.
+     */
+    IssuedToken rotate(Claims refreshClaims, UserPrincipal user);
+    
+    void revokeFamily(String familyId);
+    
+    record IssuedToken(String familyId, String refreshToken) {
+    }
+}
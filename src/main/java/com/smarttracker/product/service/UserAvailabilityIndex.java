@@ -0,0 +1,187 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.UserIdentifiers;
+import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * In-process Bloom filter of normalized usernames and emails backing the
+ * availability endpoints. The answer is only a hint. A negative answer means
+ * the value was not taken as far as this node knows, and the database is not
+ * queried. Positive answers may be false and must be confirmed with a query.
+ *
+ * <p>The index is warmed by streaming the {@code users} table once the
+ * application is ready and rebuilt every {@code rebuild-interval}.
+ * {@link #add} only updates this node, so with several nodes a username
+ * registered elsewhere can be reported available until the next rebuild.
+ * Until the first warm-up finishes, every lookup falls through to the
+ * database. Registration and import never trust a negative answer on its
+ * own: the unique constraints on {@code users} decide, and a violation is
+ * reported as a duplicate.
+ */
+@Component
+@Slf4j
+public class UserAvailabilityIndex {
+    
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+    
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long memoryBudgetBytes;
+    private final long expectedEntries;
+    
+    private final Counter definitelyAvailable;
+    private final Counter possibleMatch;
+    private final Counter notReady;
+    private final Counter falsePositives;
+    
+    private volatile BloomFilter current;
+    private volatile BloomFilter rebuilding;
+    
+    public UserAvailabilityIndex(UserRepository userRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.availability-index.enabled:true}") boolean enabled,
+                                 @Value("${app.availability-index.memory-budget:4MB}") DataSize memoryBudget,
+                                 @Value("${app.availability-index.expected-entries:2000000}") long expectedEntries) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.memoryBudgetBytes = memoryBudget.toBytes();
+        this.expectedEntries = expectedEntries;
+        
+        this.definitelyAvailable = lookupCounter(meterRegistry, "definitely_available");
+        this.possibleMatch = lookupCounter(meterRegistry, "possible_match");
+        this.notReady = lookupCounter(meterRegistry, "not_ready");
+        this.falsePositives = Counter.builder("users.availability.index.false.positives")
+                .description("Possible matches that the database reported as available")
+                .register(meterRegistry);
+        
+        Gauge.builder("users.availability.index.entries", this,
+                        index -> index.current == null ? 0 : index.current.insertions())
+                .register(meterRegistry);
+        Gauge.builder("users.availability.index.expected.fpp", this,
+                        index -> index.current == null ? 1.0 : index.current.expectedFalsePositiveRate())
+                .description("Theoretical false-positive probability at the current fill")
+                .register(meterRegistry);
+    }
+    
+    public boolean mightContainUsername(String username) {
+        return mightContain(USERNAME_PREFIX + normalize(username));
+    }
+    
+    public boolean mightContainEmail(String email) {
+        return mightContain(EMAIL_PREFIX + normalize(email));
+    }
+    
+    /**
+     * Records the database answer for a value the index reported as a possible match.
+     */
+    public void recordConfirmation(boolean exists) {
+        if (!exists) {
+            falsePositives.increment();
+        }
+    }
+    
+    public void add(User user) {
+        add(current, user.getUsername(), user.getEmail());
+        add(rebuilding, user.getUsername(), user.getEmail());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+    
+    @Scheduled(initialDelayString = "${app.availability-index.rebuild-interval:1h}",
+               fixedDelayString = "${app.availability-index.rebuild-interval:1h}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        BloomFilter filter = BloomFilter.withMemoryBudget(memoryBudgetBytes, expectedEntries);
+        rebuilding = filter;
+        
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentifiers> users = userRepository.streamAllIdentifiers()) {
+                    users.forEach(user -> add(filter, user.getUsername(), user.getEmail()));
+                }
+            });
+            current = filter;
+            
+            log.info("Availability index built with {} entries ({} bytes, k={}, expected fpp={}) in {} ms",
+                    filter.insertions(), filter.sizeInBytes(), filter.hashFunctions(),
+                    String.format("%.5f", filter.expectedFalsePositiveRate()),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Failed to build availability index: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+    
+    private boolean mightContain(String key) {
+        if (!enabled) {
+            return true;
+        }
+        
+        BloomFilter filter = current;
+        
+        if (filter == null) {
+            notReady.increment();
+            return true;
+        }
+        
+        if (filter.mightContain(key)) {
+            possibleMatch.increment();
+            return true;
+        }
+        
+        definitelyAvailable.increment();
+        return false;
+    }
+    
+    private static void add(BloomFilter filter, String username, String email) {
+        if (filter == null) {
+            return;
+        }
+        if (username != null) {
+            filter.put(USERNAME_PREFIX + normalize(username));
+        }
+        if (email != null) {
+            filter.put(EMAIL_PREFIX + normalize(email));
+        }
+    }
+    
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+    
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("users.availability.index.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
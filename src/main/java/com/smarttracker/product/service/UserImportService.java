@@ -0,0 +1,26 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.dto.UserImportEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface UserImportService {
+    
+    enum Format {
+        CSV,
+        NDJSON
+    }
+    
+    /**
+     * Creates the users read from {@code input}, publishing each rejected row
+     * and a progress report per batch to {@code events} as it goes.
+     *
+     * @return the summary, which is also the last event published
+     * @throws IllegalArgumentException if a CSV header lacks a required column
+     * @throws com.smarttracker.product.exception.ServiceBusyException if another import is running
+     */
+    UserImportEvent importUsers(InputStream input, Format format, Consumer<UserImportEvent> events)
+            throws IOException;
+}
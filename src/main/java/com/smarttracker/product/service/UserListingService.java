@@ -0,0 +1,34 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.dto.UserPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface UserListingService {
+    
+    enum Sort {
+        ID,
+        CREATED_AT
+    }
+    
+    enum ExportFormat {
+        JSON,
+        CSV
+    }
+    
+    /**
+     * Returns the page after {@code cursor}, or the first page if it is {@code null}.
+     *
+     * @param sort {@code ID} pages oldest first, {@code CREATED_AT} newest first
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    UserPage listUsers(Sort sort, String cursor, int size);
+    
+    /**
+     * Writes every user to {@code out} in id order.
+     *
+     * @throws com.smarttracker.product.exception.ServiceBusyException if another export is running
+     */
+    void exportUsers(ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,175 @@
+package com.smarttracker.product.service.impl;
+
+import com.smarttracker.product.dto.ProductPage;
+import com.smarttracker.product.dto.ProductRequest;
+import com.smarttracker.product.dto.ProductResponse;
+import com.smarttracker.product.exception.ResourceNotFoundException;
+import com.smarttracker.product.mapper.ProductMapper;
+import com.smarttracker.product.model.Product;
+import com.smarttracker.product.repository.ProductRepository;
+import com.smarttracker.product.service.ProductCache;
+import com.smarttracker.product.service.ProductService;
+import com.smarttracker.product.util.KeysetCursors;
+import com.smarttracker.product.util.KeysetCursors.TimestampPosition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Product catalog backed by JPA.
+ *
+ * <p>Single-product reads go through {@link ProductCache}; writes evict the
+ * product through the entity listener, so the cache never needs to be updated
+ * here. Listings use keyset pagination like the admin user listing: an
+ * owner's products are read from {@code idx_products_user_updated_at} starting
+ * right after the cursor's {@code (updated_at, id)}, so every page costs the
+ * same. A product updated while a client is paging moves to the front and is
+ * not repeated on later pages.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Slf4j
+public class ProductServiceImpl implements ProductService {
+    
+    // Cursor tag for an owner's listing, ordered by (updated_at, id)
+    private static final String UPDATED_AT_TAG = "u";
+    
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxPageSize;
+    
+    public ProductServiceImpl(ProductRepository productRepository,
+                              ProductMapper productMapper,
+                              ProductCache productCache,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.catalog.max-page-size:100}") int maxPageSize) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.productCache = productCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+    }
+    
+    @Override
+    @Transactional
+    public ProductResponse createProduct(Long ownerId, ProductRequest request) {
+        Product product = Product.builder()
+                .userId(ownerId)
+                .build();
+        productMapper.copy(request, product);
+        
+        Product saved = productRepository.saveAndFlush(product);
+        log.debug("Product {} created by user {}", saved.getId(), ownerId);
+        return productMapper.toDTO(saved);
+    }
+    
+    @Override
+    public ProductResponse getProduct(Long ownerId, Long productId) {
+        ProductResponse product = productCache.get(productId, id -> productRepository.findById(id)
+                .map(productMapper::toDTO)
+                .orElseThrow(() -> notFound(id)));
+        
+        // Cached for every reader; ownership is checked per request
+        if (!product.getOwnerId().equals(ownerId)) {
+            throw notFound(productId);
+        }
+        return product;
+    }
+    
+    @Override
+    @Transactional
+    public ProductResponse updateProduct(Long ownerId, Long productId, ProductRequest request) {
+        if (request.getVersion() == null) {
+            throw new IllegalArgumentException("version is required when updating a product");
+        }
+        
+        Product product = findOwned(ownerId, productId);
+        // Someone else saved since this client read the product; @Version only covers this transaction
+        if (request.getVersion() != product.getVersion()) {
+            // This node may have served the stale copy; make the client's reload see the current one
+            productCache.evict(productId);
+            throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+        }
+        productMapper.copy(request, product);
+        
+        // Flushed here so the response carries the new version and update time
+        Product saved = productRepository.saveAndFlush(product);
+        log.debug("Product {} updated by user {}", productId, ownerId);
+        return productMapper.toDTO(saved);
+    }
+    
+    @Override
+    @Transactional
+    public void deleteProduct(Long ownerId, Long productId) {
+        productRepository.delete(findOwned(ownerId, productId));
+        log.debug("Product {} deleted by user {}", productId, ownerId);
+    }
+    
+    @Override
+    public ProductPage listProducts(Long ownerId, String cursor, int size) {
+        checkPageSize(size);
+        
+        // One extra row tells whether another page follows
+        Limit limit = Limit.of(size + 1);
+        List<Product> products = readOnlyTransaction.execute(status -> {
+            if (cursor == null) {
+                return productRepository.findByUserIdOrderByUpdatedAtDescIdDesc(ownerId, limit);
+            }
+            TimestampPosition after = KeysetCursors.decodeTimestamp(cursor, UPDATED_AT_TAG);
+            return productRepository.findOwnerPageBefore(ownerId, after.timestamp(), after.id(), limit);
+        });
+        
+        return toPage(products, size,
+                last -> KeysetCursors.encodeTimestamp(UPDATED_AT_TAG, last.getUpdatedAt(), last.getId()));
+    }
+    
+    @Override
+    public ProductPage listAllProducts(String cursor, int size) {
+        checkPageSize(size);
+        
+        Limit limit = Limit.of(size + 1);
+        List<Product> products = readOnlyTransaction.execute(status -> cursor == null
+                ? productRepository.findAllByOrderByIdAsc(limit)
+                : productRepository.findPageAfterId(KeysetCursors.decodeId(cursor), limit));
+        
+        return toPage(products, size, last -> KeysetCursors.encodeId(last.getId()));
+    }
+    
+    private Product findOwned(Long ownerId, Long productId) {
+        return productRepository.findById(productId)
+                .filter(product -> product.getUserId().equals(ownerId))
+                .orElseThrow(() -> notFound(productId));
+    }
+    
+    private void checkPageSize(int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+    }
+    
+    private ProductPage toPage(List<Product> products, int size,
+                               Function<Product, String> cursorOf) {
+        boolean hasMore = products.size() > size;
+        List<Product> page = hasMore ? products.subList(0, size) : products;
+        return ProductPage.builder()
+                .products(page.stream().map(productMapper::toDTO).toList())
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+    
+    private static ResourceNotFoundException notFound(Long productId) {
+        return new ResourceNotFoundException("PRODUCT_NOT_FOUND", "Product not found: " + productId);
+    }
+}
@@ -0,0 +1,263 @@
+package com.smarttracker.product.service.impl;
+
+import com.smarttracker.product.audit.AuthAuditLog;
+import com.smarttracker.product.dto.AuthAuditEvent;
+import com.smarttracker.product.dto.LoginRequestDTO;
+import com.smarttracker.product.dto.LoginResponseDTO;
+import com.smarttracker.product.dto.UserResponseDTO;
+import com.smarttracker.product.exception.AuthenticationFailedException;
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.mapper.UserMapper;
+import com.smarttracker.product.security.AuthMetrics;
+import com.smarttracker.product.security.BoundedPasswordEncoder;
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.ReactiveCustomUserDetailsService;
+import com.smarttracker.product.security.TokenDenylist;
+import com.smarttracker.product.security.UserPrincipal;
+import com.smarttracker.product.security.VerifiedTokenCache;
+import com.smarttracker.product.service.LastLoginRecorder;
+import com.smarttracker.product.service.ReactiveAuthService;
+import com.smarttracker.product.service.RefreshTokenService;
+import com.smarttracker.product.util.LogThrottle;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Reactive counterpart of {@code AuthServiceImpl}. Credentials are checked
+ * here rather than through an {@code AuthenticationManager}: the user comes
+ * from R2DBC and BCrypt runs on the bounded hashing pool, so the event loop
+ * only chains callbacks. Refresh token families are still stored through
+ * JPA; those calls are moved to {@code Schedulers.boundedElastic()}.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveAuthServiceImpl implements ReactiveAuthService {
+    
+    // Sampled like AuthServiceImpl's failure logs
+    private static final LogThrottle LOGIN_FAILURE_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle LOGIN_ERROR_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle REFRESH_FAILURE_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    private static final LogThrottle REFRESH_ERROR_LOG = new LogThrottle(10, Duration.ofSeconds(10));
+    
+    private final ReactiveCustomUserDetailsService userDetailsService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenDenylist tokenDenylist;
+    private final RefreshTokenService refreshTokenService;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final UserMapper userMapper;
+    private final AuthMetrics authMetrics;
+    private final AuthAuditLog authAuditLog;
+    
+    // Hashed against for unknown users, as DaoAuthenticationProvider does, so they take as long as known ones
+    private volatile String userNotFoundEncodedPassword;
+    
+    @Override
+    public Mono<LoginResponseDTO> authenticate(LoginRequestDTO request) {
+        log.debug("Authentication attempt for: {}", request.getUsernameOrEmail());
+        
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return verifyCredentials(request)
+                    .flatMap(user -> {
+                        long authenticated = System.nanoTime();
+                        authMetrics.recordLoginStage(AuthMetrics.LoginStage.AUTHENTICATE, authenticated - start);
+                        
+                        // Each login starts a new refresh token family (JPA, so off the event loop)
+                        return Mono.fromCallable(() -> refreshTokenService.issue(user))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .map(refreshToken -> {
+                                    String accessToken = jwtUtil.generateToken(user, refreshToken.familyId());
+                                    long issued = System.nanoTime();
+                                    authMetrics.recordLoginStage(AuthMetrics.LoginStage.ISSUE_TOKENS,
+                                            issued - authenticated);
+                                    
+                                    LocalDateTime loginTime = LocalDateTime.now();
+                                    lastLoginRecorder.record(user.getId(), loginTime);
+                                    authMetrics.recordLoginStage(AuthMetrics.LoginStage.RECORD_LAST_LOGIN,
+                                            System.nanoTime() - issued);
+                                    
+                                    log.debug("User authenticated successfully: {}", user.getUsername());
+                                    authAuditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS,
+                                            user.getId(), user.getUsername());
+                                    
+                                    UserResponseDTO userResponse = userMapper.toDTO(user, loginTime);
+                                    
+                                    return LoginResponseDTO.builder()
+                                            .accessToken(accessToken)
+                                            .refreshToken(refreshToken.refreshToken())
+                                            .tokenType("Bearer")
+                                            .expiresIn(jwtUtil.getExpirationTime())
+                                            .user(userResponse)
+                                            .build();
+                                });
+                    })
+                    .doOnSuccess(response ->
+                            authMetrics.recordLogin(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start))
+                    .onErrorMap(e -> {
+                        AuthMetrics.Outcome outcome = AuthMetrics.Outcome.of(e);
+                        authMetrics.recordLogin(outcome, System.nanoTime() - start);
+                        authAuditLog.record(AuthAuditEvent.Type.LOGIN, outcome, null, request.getUsernameOrEmail());
+                        
+                        if (e instanceof BadCredentialsException) {
+                            long suppressed = LOGIN_FAILURE_LOG.tryAcquire();
+                            if (suppressed >= 0) {
+                                log.warn("Invalid credentials for: {}{}", request.getUsernameOrEmail(),
+                                        LogThrottle.suppressedNote(suppressed));
+                            }
+                            return new AuthenticationFailedException("Invalid username or password");
+                        }
+                        
+                        // Overload (hashing pool or connection pool full) is reported as 503, not 401
+                        ServiceBusyException busy = ServiceBusyException.findIn(e);
+                        if (busy != null) {
+                            return busy;
+                        }
+                        
+                        long suppressed = LOGIN_ERROR_LOG.tryAcquire();
+                        if (suppressed >= 0) {
+                            log.error("Authentication failed for {}: {}{}", request.getUsernameOrEmail(),
+                                    e.getMessage(), LogThrottle.suppressedNote(suppressed));
+                        }
+                        return new AuthenticationFailedException("Authentication failed: " + e.getMessage());
+                    });
+        });
+    }
+    
+    @Override
+    public Mono<LoginResponseDTO.Tokens> refreshToken(String refreshToken) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.fromCallable(() -> jwtUtil.parseClaims(refreshToken))
+                    .doOnError(e -> authAuditLog.record(AuthAuditEvent.Type.REFRESH, AuthMetrics.Outcome.of(e),
+                            null, null))
+                    .flatMap(claims -> userDetailsService.findPrincipal(claims.getSubject())
+                            .flatMap(user -> rotate(claims, user))
+                            .doOnError(e -> authAuditLog.record(AuthAuditEvent.Type.REFRESH,
+                                    AuthMetrics.Outcome.of(e), null, claims.getSubject())))
+                    .doOnSuccess(tokens ->
+                            authMetrics.recordRefresh(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start))
+                    .onErrorMap(e -> {
+                        if (e instanceof AuthenticationFailedException) {
+                            authMetrics.recordRefresh(AuthMetrics.Outcome.REJECTED, System.nanoTime() - start);
+                            long suppressed = REFRESH_FAILURE_LOG.tryAcquire();
+                            if (suppressed >= 0) {
+                                log.warn("Token refresh rejected: {}{}", e.getMessage(),
+                                        LogThrottle.suppressedNote(suppressed));
+                            }
+                            return e;
+                        }
+                        
+                        authMetrics.recordRefresh(AuthMetrics.Outcome.of(e), System.nanoTime() - start);
+                        
+                        ServiceBusyException busy = ServiceBusyException.findIn(e);
+                        if (busy != null) {
+                            return busy;
+                        }
+                        
+                        long suppressed = REFRESH_ERROR_LOG.tryAcquire();
+                        if (suppressed >= 0) {
+                            log.error("Token refresh failed: {}{}", e.getMessage(),
+                                    LogThrottle.suppressedNote(suppressed));
+                        }
+                        return new AuthenticationFailedException("Token refresh failed: " + e.getMessage());
+                    });
+        });
+    }
+    
+    @Override
+    public Mono<Void> logout(String username, String accessToken) {
+        Mono<Void> revoke = accessToken == null
+                ? Mono.empty()
+                : Mono.fromCallable(() -> {
+                            // Already verified by the filter, so this is a cache hit
+                            Claims claims = verifiedTokenCache.getVerifiedClaims(accessToken);
+                            tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+                            return jwtUtil.extractFamilyId(claims);
+                        })
+                        .flatMap(familyId -> Mono.fromRunnable(() -> refreshTokenService.revokeFamily(familyId))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .then();
+        
+        return revoke.doOnSuccess(done -> {
+            authAuditLog.record(AuthAuditEvent.Type.LOGOUT, AuthMetrics.Outcome.SUCCESS, null, username);
+            log.debug("User logged out: {}", username);
+        });
+    }
+    
+    /**
+     * Looks the user up and checks the password on the hashing pool. Unknown,
+     * disabled and locked users all fail with {@link BadCredentialsException},
+     * as they do behind {@code DaoAuthenticationProvider}.
+     */
+    private Mono<UserPrincipal> verifyCredentials(LoginRequestDTO request) {
+        String password = request.getPassword();
+        
+        return userDetailsService.findPrincipal(request.getUsernameOrEmail())
+                .onErrorResume(UsernameNotFoundException.class, e -> userNotFoundPassword()
+                        .flatMap(encoded -> Mono.fromFuture(() -> passwordEncoder.matchesAsync(password, encoded)))
+                        .then(Mono.error(() -> new BadCredentialsException("Bad credentials"))))
+                .flatMap(user -> Mono.fromFuture(() -> passwordEncoder.matchesAsync(password, user.getPassword()))
+                        .flatMap(matches -> matches
+                                ? upgradeEncoding(user, password)
+                                : Mono.error(() -> new BadCredentialsException("Bad credentials"))));
+    }
+    
+    /**
+     * Rehashes a password stored at an outdated cost, as
+     * {@code DaoAuthenticationProvider} does after a successful login.
+     */
+    private Mono<UserPrincipal> upgradeEncoding(UserPrincipal user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return Mono.just(user);
+        }
+        return Mono.fromFuture(() -> passwordEncoder.encodeAsync(password))
+                .flatMap(encoded -> userDetailsService.updatePassword(user, encoded))
+                .cast(UserPrincipal.class);
+    }
+    
+    private Mono<String> userNotFoundPassword() {
+        String encoded = userNotFoundEncodedPassword;
+        if (encoded != null) {
+            return Mono.just(encoded);
+        }
+        return Mono.fromFuture(() -> passwordEncoder.encodeAsync("userNotFoundPassword"))
+                .doOnNext(hash -> userNotFoundEncodedPassword = hash);
+    }
+    
+    private Mono<LoginResponseDTO.Tokens> rotate(Claims claims, UserPrincipal user) {
+        if (!jwtUtil.isTokenValid(claims, user)) {
+            return Mono.error(new AuthenticationFailedException("Invalid refresh token"));
+        }
+        
+        // Rotate within the family; a replayed token revokes the family
+        return Mono.fromCallable(() -> refreshTokenService.rotate(claims, user))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(newRefreshToken -> {
+                    String newAccessToken = jwtUtil.generateToken(user, newRefreshToken.familyId());
+                    log.debug("Token refreshed successfully for user: {}", user.getUsername());
+                    authAuditLog.record(AuthAuditEvent.Type.REFRESH, AuthMetrics.Outcome.SUCCESS, user.getId(),
+                            user.getUsername());
+                    
+                    return LoginResponseDTO.Tokens.builder()
+                            .accessToken(newAccessToken)
+                            .refreshToken(newRefreshToken.refreshToken())
+                            .tokenType("Bearer")
+                            .expiresIn(jwtUtil.getExpirationTime())
+                            .build();
+                });
+    }
+}
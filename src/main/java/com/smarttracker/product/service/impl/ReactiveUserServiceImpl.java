@@ -0,0 +1,132 @@
+package com.smarttracker.product.service.impl;
+
+import com.smarttracker.product.dto.RegisterRequest;
+import com.smarttracker.product.dto.UserResponseDTO;
+import com.smarttracker.product.exception.DuplicateResourceException;
+import com.smarttracker.product.mapper.UserMapper;
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.ReactiveUserRepository;
+import com.smarttracker.product.security.AuthMetrics;
+import com.smarttracker.product.security.BoundedPasswordEncoder;
+import com.smarttracker.product.service.ReactiveUserService;
+import com.smarttracker.product.service.UserAvailabilityIndex;
+import io.r2dbc.spi.R2dbcException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Reactive counterpart of {@link UserServiceImpl}, with the same validation,
+ * duplicate handling and metrics. The password is hashed on the bounded
+ * hashing pool and the row inserted over R2DBC, so no request thread waits
+ * on either.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    
+    private final ReactiveUserRepository userRepository;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UserMapper userMapper;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final AuthMetrics authMetrics;
+    
+    @Override
+    public Mono<UserResponseDTO> registerUser(RegisterRequest request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return register(request)
+                    .doOnSuccess(response ->
+                            authMetrics.recordRegistration(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start))
+                    .doOnError(e -> authMetrics.recordRegistration(outcomeOf(e), System.nanoTime() - start));
+        });
+    }
+    
+    private Mono<UserResponseDTO> register(RegisterRequest request) {
+        log.info("Attempting to register user: {}", request.getUsername());
+        
+        return Mono.fromRunnable(() -> UserServiceImpl.validatePasswordStrength(request.getPassword()))
+                .then(Mono.fromFuture(() -> passwordEncoder.encodeAsync(request.getPassword())))
+                .map(encodedPassword -> User.builder()
+                        .username(request.getUsername().toLowerCase(Locale.ROOT))
+                        .email(request.getEmail().toLowerCase(Locale.ROOT))
+                        .password(encodedPassword)
+                        .firstName(request.getFirstName())
+                        .lastName(request.getLastName())
+                        .enabled(true)
+                        .accountNonExpired(true)
+                        .accountNonLocked(true)
+                        .credentialsNonExpired(true)
+                        .build())
+                // Single INSERT; the unique constraints detect duplicates, also under concurrent sign-ups
+                .flatMap(userRepository::insert)
+                .onErrorMap(DataIntegrityViolationException.class, e -> toDuplicateResourceException(e, request))
+                .map(savedUser -> {
+                    log.info("User registered successfully with ID: {}", savedUser.getId());
+                    availabilityIndex.add(savedUser);
+                    return userMapper.toDTO(savedUser);
+                });
+    }
+    
+    @Override
+    public Mono<Boolean> existsByUsername(String username) {
+        // Definitely-available answers skip the database entirely
+        if (!availabilityIndex.mightContainUsername(username)) {
+            return Mono.just(false);
+        }
+        
+        return userRepository.existsByUsernameIgnoreCase(username)
+                .doOnNext(availabilityIndex::recordConfirmation);
+    }
+    
+    @Override
+    public Mono<Boolean> existsByEmail(String email) {
+        if (!availabilityIndex.mightContainEmail(email)) {
+            return Mono.just(false);
+        }
+        
+        return userRepository.existsByEmailIgnoreCase(email)
+                .doOnNext(availabilityIndex::recordConfirmation);
+    }
+    
+    // R2DBC reports the violated constraint only in the driver's message
+    private Throwable toDuplicateResourceException(DataIntegrityViolationException e, RegisterRequest request) {
+        DuplicateResourceException duplicate = UserServiceImpl.duplicateOf(e, sqlStateOf(e), request);
+        if (duplicate != null) {
+            return duplicate;
+        }
+        
+        log.error("Unexpected constraint violation while registering {}: {}", request.getUsername(),
+                e.getMostSpecificCause().getMessage());
+        return e;
+    }
+    
+    private static String sqlStateOf(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof R2dbcException r2dbc) {
+                return r2dbc.getSqlState();
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+    
+    private static AuthMetrics.Outcome outcomeOf(Throwable e) {
+        if (e instanceof DuplicateResourceException) {
+            return AuthMetrics.Outcome.DUPLICATE;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return AuthMetrics.Outcome.REJECTED;
+        }
+        return AuthMetrics.Outcome.of(e);
+    }
+}
@@ -0,0 +1,174 @@
+package com.smarttracker.product.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smarttracker.product.exception.AuthenticationFailedException;
+import com.smarttracker.product.model.RefreshTokenFamily;
+import com.smarttracker.product.repository.RefreshTokenFamilyRepository;
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.TokenVersionCache;
+import com.smarttracker.product.security.UserPrincipal;
+import com.smarttracker.product.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens grouped into families, one per login. The
+ * {@code refresh_token_families} table is the source of truth. An in-memory
+ * index of family state serves lookups, so a normal refresh costs one index
+ * lookup plus one compare-and-set UPDATE. Any mismatch is re-checked against
+ * the table before reuse is declared. A stale index entry (for example,
+ * after a rotation on another node) is replaced from the table and the
+ * rotation retried, so it neither revokes nor rejects a healthy family.
+ *
+ * <p>Reuse means a rotated token was copied, so the copy's holder may also
+ * have the access tokens issued from it. Revoking the family alone would
+ * leave those valid until they expire; reuse therefore also bumps the user's
+ * token version ({@link TokenVersionCache#revokeAll}), which ends every
+ * session of the user.
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenVersionCache tokenVersionCache;
+    private final Cache<String, FamilyState> index;
+    private final Counter rotations;
+    private final Counter reuseDetected;
+    
+    public RefreshTokenServiceImpl(RefreshTokenFamilyRepository familyRepository,
+                                   JwtUtil jwtUtil,
+                                   TokenVersionCache tokenVersionCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.security.refresh-tokens.index-size:100000}") long indexSize) {
+        this.familyRepository = familyRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenVersionCache = tokenVersionCache;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexSize)
+                .expireAfterWrite(Duration.ofMillis(jwtUtil.getRefreshExpirationTime()))
+                .recordStats()
+                .build();
+        this.rotations = Counter.builder("security.refresh.rotations").register(meterRegistry);
+        this.reuseDetected = Counter.builder("security.refresh.reuse.detected")
+                .description("Rotated refresh tokens presented again; all of the user's tokens were revoked")
+                .register(meterRegistry);
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "security.refresh-token-families");
+    }
+    
+    @Override
+    public IssuedToken issue(UserPrincipal user) {
+        String familyId = UUID.randomUUID().toString();
+        String tokenId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = nextExpiry();
+        
+        familyRepository.save(RefreshTokenFamily.builder()
+                .id(familyId)
+                .userId(user.getId())
+                .currentTokenId(tokenId)
+                .expiresAt(expiresAt)
+                .build());
+        index.put(familyId, new FamilyState(user.getId(), tokenId, expiresAt, false));
+        
+        return new IssuedToken(familyId, jwtUtil.generateRefreshToken(user, familyId, tokenId));
+    }
+    
+    @Override
+    public IssuedToken rotate(Claims refreshClaims, UserPrincipal user) {
+        String familyId = jwtUtil.extractFamilyId(refreshClaims);
+        String presentedTokenId = refreshClaims.getId();
+        
+        if (!jwtUtil.isRefreshToken(refreshClaims) || familyId == null || presentedTokenId == null) {
+            throw new AuthenticationFailedException("Invalid refresh token", "INVALID_REFRESH_TOKEN");
+        }
+        
+        IssuedToken rotated = tryRotate(familyId, presentedTokenId, index.get(familyId, this::loadState), user);
+        if (rotated != null) {
+            return rotated;
+        }
+        
+        // Mismatch or lost race: confirm against the table before treating it as reuse
+        index.invalidate(familyId);
+        FamilyState current = loadState(familyId);
+        if (current != null && presentedTokenId.equals(current.currentTokenId())) {
+            // The index was stale, e.g. the family was rotated on another node: retry from the table's state
+            rotated = tryRotate(familyId, presentedTokenId, current, user);
+            if (rotated != null) {
+                return rotated;
+            }
+            current = loadState(familyId);
+            if (current != null && !current.revoked() && presentedTokenId.equals(current.currentTokenId())) {
+                throw new AuthenticationFailedException(
+                        "Refresh token is being rotated concurrently, retry", "REFRESH_TOKEN_CONFLICT");
+            }
+        }
+        
+        reuseDetected.increment();
+        log.warn("Refresh token reuse detected for user {} (family {}), revoking all of the user's tokens",
+                user.getUsername(), familyId);
+        revokeFamily(familyId);
+        tokenVersionCache.revokeAll(user.getId());
+        throw new AuthenticationFailedException("Refresh token has been revoked", "REFRESH_TOKEN_REVOKED");
+    }
+    
+    // Compare-and-set from the given state; null if the presented token is not the current one
+    private IssuedToken tryRotate(String familyId, String presentedTokenId, FamilyState state, UserPrincipal user) {
+        if (state == null || state.revoked() || !Objects.equals(state.userId(), user.getId())) {
+            throw new AuthenticationFailedException("Refresh token has been revoked", "REFRESH_TOKEN_REVOKED");
+        }
+        if (!presentedTokenId.equals(state.currentTokenId())) {
+            return null;
+        }
+        
+        String nextTokenId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = nextExpiry();
+        if (familyRepository.rotate(familyId, presentedTokenId, nextTokenId, expiresAt, LocalDateTime.now()) != 1) {
+            return null;
+        }
+        index.put(familyId, new FamilyState(state.userId(), nextTokenId, expiresAt, false));
+        rotations.increment();
+        return new IssuedToken(familyId, jwtUtil.generateRefreshToken(user, familyId, nextTokenId));
+    }
+    
+    @Override
+    public void revokeFamily(String familyId) {
+        familyRepository.revoke(familyId);
+        index.invalidate(familyId);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.security.refresh-tokens.cleanup-interval:1h}")
+    public void deleteExpiredFamilies() {
+        int deleted = familyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired refresh token families", deleted);
+        }
+    }
+    
+    private FamilyState loadState(String familyId) {
+        return familyRepository.findById(familyId)
+                .map(family -> new FamilyState(
+                        family.getUserId(), family.getCurrentTokenId(), family.getExpiresAt(), family.isRevoked()))
+                .orElse(null);
+    }
+    
+    private LocalDateTime nextExpiry() {
+        return LocalDateTime.now().plus(Duration.ofMillis(jwtUtil.getRefreshExpirationTime()));
+    }
+    
+    private record FamilyState(Long userId, String currentTokenId, LocalDateTime expiresAt, boolean revoked) {
+    }
+}
@@ -0,0 +1,542 @@
+package com.smarttracker.product.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.smarttracker.product.dto.RegisterRequest;
+import com.smarttracker.product.dto.UserImportEvent;
+import com.smarttracker.product.dto.UserImportRow;
+import com.smarttracker.product.exception.DuplicateResourceException;
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.UserIdentifiers;
+import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.security.BoundedPasswordEncoder;
+import com.smarttracker.product.service.UserAvailabilityIndex;
+import com.smarttracker.product.service.UserImportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams users from a CSV or NDJSON upload into the {@code users} table.
+ *
+ * <p>The input is read {@code app.user-import.batch-size} rows at a time, and
+ * at most two batches are held in memory. Each batch is validated, checked
+ * for duplicates within the file, against the availability index and then
+ * with a single IN query, and its passwords are hashed on a pool of
+ * {@code hashing-threads} threads of its own. While one batch hashes, the
+ * previous one is written in one transaction as a single JDBC batch. If that
+ * insert fails, typically because a concurrent sign-up took a username, the
+ * batch is retried row by row so that only the offending rows are rejected.
+ *
+ * <p>Only one import runs at a time; a second one gets a 503.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+    
+    private static final long BUSY_RETRY_AFTER_SECONDS = 30;
+    private static final int MAX_BUSY_ATTEMPTS = 5;
+    
+    private static final String USERNAME = "username";
+    private static final String EMAIL = "email";
+    private static final String PASSWORD = "password";
+    private static final String FIRST_NAME = "firstname";
+    private static final String LAST_NAME = "lastname";
+    private static final List<String> CSV_COLUMNS = List.of(USERNAME, EMAIL, PASSWORD, FIRST_NAME, LAST_NAME);
+    
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final Validator validator;
+    private final ObjectReader rowReader;
+    private final int batchSize;
+    private final int hashingThreads;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    private final Counter importedRows;
+    private final Counter skippedRows;
+    private final Counter failedRows;
+    
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 BoundedPasswordEncoder passwordEncoder,
+                                 UserAvailabilityIndex availabilityIndex,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.user-import.batch-size:500}") int batchSize,
+                                 @Value("${app.user-import.hashing-threads:0}") int hashingThreads) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.availabilityIndex = availabilityIndex;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(UserImportRow.class);
+        this.batchSize = batchSize;
+        // Default to a quarter of the cores, so an import cannot starve request handling of CPU
+        this.hashingThreads = hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        
+        this.importedRows = rowCounter(meterRegistry, "imported");
+        this.skippedRows = rowCounter(meterRegistry, "skipped");
+        this.failedRows = rowCounter(meterRegistry, "failed");
+    }
+    
+    private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("users.import.rows")
+                .description("Rows read by bulk user imports, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public UserImportEvent importUsers(InputStream input, Format format, Consumer<UserImportEvent> events)
+            throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new ServiceBusyException("Another user import is in progress", BUSY_RETRY_AFTER_SECONDS);
+        }
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService hashingPool = Executors.newFixedThreadPool(hashingThreads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            return new Job(reader, format, events, hashingPool).run();
+        } finally {
+            hashingPool.shutdownNow();
+            running.set(false);
+        }
+    }
+    
+    private record Row(long line, UserImportRow user) {
+    }
+    
+    private record Batch(List<Row> rows, List<CompletableFuture<String>> hashes, Set<String> identifiers) {
+    }
+    
+    private record Hashed(Row row, String encodedPassword) {
+    }
+    
+    /**
+     * State of one import: position in the input and running totals.
+     */
+    private final class Job {
+        
+        private final BufferedReader reader;
+        private final Format format;
+        private final Consumer<UserImportEvent> events;
+        private final ExecutorService hashingPool;
+        private final long start = System.nanoTime();
+        
+        // CSV: position of each of CSV_COLUMNS in a record, -1 if absent; null until the header is read
+        private int[] columns;
+        private long line;
+        private long processed;
+        private long imported;
+        private long skipped;
+        private long failed;
+        
+        Job(BufferedReader reader, Format format, Consumer<UserImportEvent> events, ExecutorService hashingPool) {
+            this.reader = reader;
+            this.format = format;
+            this.events = events;
+            this.hashingPool = hashingPool;
+        }
+        
+        UserImportEvent run() throws IOException {
+            Batch pending = null;
+            for (List<Row> rows = read(); !rows.isEmpty(); rows = read()) {
+                // Queued behind the pending batch's hashes, so the pool stays busy while that batch is written
+                Batch next = prepare(rows, pending);
+                if (pending != null) {
+                    write(pending);
+                }
+                pending = next;
+            }
+            if (pending != null) {
+                write(pending);
+            }
+            
+            UserImportEvent summary = totals(UserImportEvent.SUMMARY);
+            events.accept(summary);
+            log.info("User import finished: {} rows, {} imported, {} skipped, {} failed in {} ms",
+                    processed, imported, skipped, failed, summary.getElapsedMillis());
+            return summary;
+        }
+        
+        private List<Row> read() throws IOException {
+            List<Row> rows = new ArrayList<>(batchSize);
+            String text;
+            while (rows.size() < batchSize && (text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && columns == null) {
+                    columns = parseHeader(text);
+                    continue;
+                }
+                
+                processed++;
+                try {
+                    rows.add(new Row(line, format == Format.CSV ? parseRecord(text) : parseObject(text)));
+                } catch (JsonProcessingException e) {
+                    fail(line, null, "MALFORMED_ROW", "Line is not a valid JSON object");
+                } catch (IllegalArgumentException e) {
+                    fail(line, null, "MALFORMED_ROW", e.getMessage());
+                }
+            }
+            return rows;
+        }
+        
+        private int[] parseHeader(String text) {
+            List<String> names = parseCsvLine(text.startsWith("\uFEFF") ? text.substring(1) : text).stream()
+                    .map(name -> name.trim().replace("_", "").toLowerCase(Locale.ROOT))
+                    .toList();
+            int[] positions = CSV_COLUMNS.stream().mapToInt(names::indexOf).toArray();
+            for (String required : List.of(USERNAME, EMAIL, PASSWORD)) {
+                if (positions[CSV_COLUMNS.indexOf(required)] < 0) {
+                    throw new IllegalArgumentException("CSV header must contain a '" + required + "' column");
+                }
+            }
+            return positions;
+        }
+        
+        // A bare "null" line deserializes to null instead of failing like other non-objects
+        private UserImportRow parseObject(String text) throws JsonProcessingException {
+            UserImportRow user = rowReader.readValue(text);
+            if (user == null) {
+                throw new IllegalArgumentException("Line is not a valid JSON object");
+            }
+            return user;
+        }
+        
+        private UserImportRow parseRecord(String text) {
+            List<String> fields = parseCsvLine(text);
+            return UserImportRow.builder()
+                    .username(field(fields, USERNAME))
+                    .email(field(fields, EMAIL))
+                    .password(field(fields, PASSWORD))
+                    .firstName(field(fields, FIRST_NAME))
+                    .lastName(field(fields, LAST_NAME))
+                    .build();
+        }
+        
+        private String field(List<String> fields, String column) {
+            int position = columns[CSV_COLUMNS.indexOf(column)];
+            String value = position >= 0 && position < fields.size() ? fields.get(position) : null;
+            return value == null || value.isEmpty() ? null : value;
+        }
+        
+        private Batch prepare(List<Row> rows, Batch previous) {
+            Set<String> identifiers = new HashSet<>();
+            List<Row> candidates = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                UserImportRow user = row.user();
+                String invalid = validate(user);
+                if (invalid != null) {
+                    fail(row.line(), user.getUsername(), "VALIDATION_ERROR", invalid);
+                    continue;
+                }
+                
+                user.setUsername(user.getUsername().toLowerCase(Locale.ROOT));
+                user.setEmail(user.getEmail().toLowerCase(Locale.ROOT));
+                // Usernames cannot contain '@', so both kinds share one set
+                if (isRepeated(user.getUsername(), identifiers, previous)
+                        || isRepeated(user.getEmail(), identifiers, previous)) {
+                    skip(row, "DUPLICATE_IN_FILE", "Username or email appears earlier in the file");
+                    continue;
+                }
+                identifiers.add(user.getUsername());
+                identifiers.add(user.getEmail());
+                candidates.add(row);
+            }
+            
+            List<Row> accepted = withoutExisting(candidates);
+            List<CompletableFuture<String>> hashes = accepted.stream()
+                    .map(row -> CompletableFuture.supplyAsync(
+                            () -> passwordEncoder.encodeOnCallerThread(row.user().getPassword()), hashingPool))
+                    .toList();
+            return new Batch(accepted, hashes, identifiers);
+        }
+        
+        private String validate(UserImportRow user) {
+            Set<ConstraintViolation<UserImportRow>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                return violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            }
+            try {
+                UserServiceImpl.validatePasswordStrength(user.getPassword());
+                return null;
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        }
+        
+        private boolean isRepeated(String identifier, Set<String> identifiers, Batch previous) {
+            return identifiers.contains(identifier)
+                    || previous != null && previous.identifiers().contains(identifier);
+        }
+        
+        private List<Row> withoutExisting(List<Row> candidates) {
+            Set<String> usernames = new HashSet<>();
+            Set<String> emails = new HashSet<>();
+            for (Row row : candidates) {
+                if (availabilityIndex.mightContainUsername(row.user().getUsername())) {
+                    usernames.add(row.user().getUsername());
+                }
+                if (availabilityIndex.mightContainEmail(row.user().getEmail())) {
+                    emails.add(row.user().getEmail());
+                }
+            }
+            if (usernames.isEmpty() && emails.isEmpty()) {
+                return candidates;
+            }
+            
+            Set<String> existing = new HashSet<>();
+            for (UserIdentifiers found : userRepository.findIdentifiersIn(usernames, emails)) {
+                existing.add(found.getUsername());
+                existing.add(found.getEmail());
+            }
+            
+            List<Row> accepted = new ArrayList<>(candidates.size());
+            for (Row row : candidates) {
+                UserImportRow user = row.user();
+                if (usernames.contains(user.getUsername())) {
+                    availabilityIndex.recordConfirmation(existing.contains(user.getUsername()));
+                }
+                if (emails.contains(user.getEmail())) {
+                    availabilityIndex.recordConfirmation(existing.contains(user.getEmail()));
+                }
+                
+                if (existing.contains(user.getUsername())) {
+                    skip(row, UserServiceImpl.duplicateOf(User.USERNAME_CONSTRAINT, toRequest(user)));
+                } else if (existing.contains(user.getEmail())) {
+                    skip(row, UserServiceImpl.duplicateOf(User.EMAIL_CONSTRAINT, toRequest(user)));
+                } else {
+                    accepted.add(row);
+                }
+            }
+            return accepted;
+        }
+        
+        private void write(Batch batch) {
+            List<Hashed> hashed = new ArrayList<>(batch.rows().size());
+            for (int i = 0; i < batch.rows().size(); i++) {
+                Row row = batch.rows().get(i);
+                try {
+                    hashed.add(new Hashed(row, batch.hashes().get(i).join()));
+                } catch (CompletionException e) {
+                    log.warn("Failed to hash the password on import line {}: {}", row.line(), e.getMessage());
+                    fail(row.line(), row.user().getUsername(), "HASH_FAILED", "Password could not be hashed");
+                }
+            }
+            
+            if (!hashed.isEmpty()) {
+                try {
+                    stored(insert(hashed));
+                } catch (RuntimeException e) {
+                    log.debug("Batch insert of {} imported users failed, retrying row by row: {}",
+                            hashed.size(), e.getMessage());
+                    hashed.forEach(this::writeOne);
+                }
+            }
+            
+            events.accept(totals(UserImportEvent.PROGRESS));
+            log.debug("User import progress: {} rows, {} imported", processed, imported);
+        }
+        
+        private void writeOne(Hashed row) {
+            try {
+                stored(insert(List.of(row)));
+            } catch (RuntimeException e) {
+                UserImportRow user = row.row().user();
+                DuplicateResourceException duplicate = UserServiceImpl.duplicateOf(e, toRequest(user));
+                if (duplicate != null) {
+                    skip(row.row(), duplicate);
+                    return;
+                }
+                
+                log.warn("Failed to import line {} ({}): {}", row.row().line(), user.getUsername(), e.getMessage());
+                fail(row.row().line(), user.getUsername(), "INSERT_FAILED", "User could not be stored");
+            }
+        }
+        
+        private void stored(List<User> users) {
+            users.forEach(availabilityIndex::add);
+            imported += users.size();
+            importedRows.increment(users.size());
+        }
+        
+        private void skip(Row row, DuplicateResourceException duplicate) {
+            skip(row, duplicate.getErrorCode(), duplicate.getMessage());
+        }
+        
+        private void skip(Row row, String errorCode, String message) {
+            skipped++;
+            skippedRows.increment();
+            events.accept(rejection(row.line(), row.user().getUsername(), errorCode, message));
+        }
+        
+        private void fail(long line, String username, String errorCode, String message) {
+            failed++;
+            failedRows.increment();
+            events.accept(rejection(line, username, errorCode, message));
+        }
+        
+        private UserImportEvent totals(String type) {
+            return UserImportEvent.builder()
+                    .type(type)
+                    .processed(processed)
+                    .imported(imported)
+                    .skipped(skipped)
+                    .failed(failed)
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+    
+    /**
+     * Persists the rows in one transaction and one JDBC batch. Sequence ids are
+     * what allow Hibernate to batch at all. If the connection bulkhead turns
+     * the transaction away, waits and retries instead of failing the rows.
+     */
+    private List<User> insert(List<Hashed> rows) {
+        for (int attempt = 1; ; attempt++) {
+            // Fresh entities each time: a rolled-back attempt leaves ids on the previous ones
+            List<User> users = rows.stream().map(UserImportServiceImpl::toUser).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                    users.forEach(entityManager::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                return users;
+            } catch (RuntimeException e) {
+                ServiceBusyException busy = ServiceBusyException.findIn(e);
+                if (busy == null || attempt == MAX_BUSY_ATTEMPTS) {
+                    throw e;
+                }
+                pause(busy);
+            }
+        }
+    }
+    
+    private static void pause(ServiceBusyException busy) {
+        try {
+            TimeUnit.SECONDS.sleep(Math.max(1, busy.getRetryAfterSeconds()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy;
+        }
+    }
+    
+    private static User toUser(Hashed row) {
+        UserImportRow user = row.row().user();
+        return User.builder()
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .password(row.encodedPassword())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+    
+    private static RegisterRequest toRequest(UserImportRow user) {
+        return RegisterRequest.builder()
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .build();
+    }
+    
+    private static UserImportEvent rejection(long line, String username, String errorCode, String message) {
+        return UserImportEvent.builder()
+                .type(UserImportEvent.REJECTED)
+                .line(line)
+                .username(username)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+    
+    /**
+     * Splits one CSV record (RFC 4180). Quoted fields may contain commas and
+     * doubled quotes but not line breaks, since records are read line by line.
+     */
+    static List<String> parseCsvLine(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,198 @@
+package com.smarttracker.product.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smarttracker.product.dto.UserPage;
+import com.smarttracker.product.dto.UserResponseDTO;
+import com.smarttracker.product.exception.ServiceBusyException;
+import com.smarttracker.product.mapper.UserMapper;
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.service.UserListingService;
+import com.smarttracker.product.util.KeysetCursors;
+import com.smarttracker.product.util.KeysetCursors.TimestampPosition;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Admin listing and export of users.
+ *
+ * <p>Pages use keyset pagination: the cursor carries the sort key of the last
+ * row returned and the next query starts right after it on an index, so page
+ * 10,000 costs the same as page 1 and rows inserted meanwhile do not shift
+ * pages. Exports read one forward-only cursor in a read-only transaction at
+ * the configured JDBC fetch size and write each row before reading the next,
+ * detaching it from the persistence context, so memory stays flat whatever
+ * the number of users. An export holds one database connection for its whole
+ * duration, which is why only {@code app.user-export.max-concurrent} run at once.
+ */
+@Service
+@Slf4j
+public class UserListingServiceImpl implements UserListingService {
+    
+    private static final long BUSY_RETRY_AFTER_SECONDS = 30;
+    private static final String CSV_HEADER = "id,username,email,firstName,lastName,createdAt,lastLogin";
+    private static final String CREATED_AT_TAG = "c";
+    
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter exportWriter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxPageSize;
+    private final Semaphore exports;
+    
+    public UserListingServiceImpl(UserRepository userRepository,
+                                  UserMapper userMapper,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.user-listing.max-page-size:500}") int maxPageSize,
+                                  @Value("${app.user-export.max-concurrent:1}") int maxConcurrentExports) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // Flushing after every user would send one packet per row; the servlet buffer flushes as it fills
+        this.exportWriter = objectMapper.writerFor(UserResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+        this.exports = new Semaphore(maxConcurrentExports);
+    }
+    
+    @Override
+    public UserPage listUsers(Sort sort, String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        
+        // One extra row tells whether another page follows
+        Limit limit = Limit.of(size + 1);
+        List<User> users = readOnlyTransaction.execute(status -> switch (sort) {
+            case ID -> cursor == null
+                    ? userRepository.findAllByOrderByIdAsc(limit)
+                    : userRepository.findPageAfterId(KeysetCursors.decodeId(cursor), limit);
+            case CREATED_AT -> {
+                if (cursor == null) {
+                    yield userRepository.findAllByOrderByCreatedAtDescIdDesc(limit);
+                }
+                TimestampPosition after = KeysetCursors.decodeTimestamp(cursor, CREATED_AT_TAG);
+                yield userRepository.findPageBeforeCreatedAt(after.timestamp(), after.id(), limit);
+            }
+        });
+        
+        boolean hasMore = users.size() > size;
+        List<User> page = hasMore ? users.subList(0, size) : users;
+        return UserPage.builder()
+                .users(page.stream().map(userMapper::toDTO).toList())
+                .nextCursor(hasMore ? cursorAfter(sort, page.get(page.size() - 1)) : null)
+                .build();
+    }
+    
+    @Override
+    public void exportUsers(ExportFormat format, OutputStream out) throws IOException {
+        if (!exports.tryAcquire()) {
+            throw new ServiceBusyException("Too many user exports in progress", BUSY_RETRY_AFTER_SECONDS);
+        }
+        
+        long start = System.nanoTime();
+        try {
+            long rows = readOnlyTransaction.execute(status -> {
+                try (Stream<User> users = userRepository.streamAllOrderById()) {
+                    return format == ExportFormat.CSV ? writeCsv(users, out) : writeJson(users, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} users as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exports.release();
+        }
+    }
+    
+    private long writeJson(Stream<User> users, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            json.writeStartArray();
+            for (User user : (Iterable<User>) users::iterator) {
+                exportWriter.writeValue(json, toDTO(user));
+                rows++;
+            }
+            json.writeEndArray();
+        }
+        return rows;
+    }
+    
+    private long writeCsv(Stream<User> users, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(CSV_HEADER);
+        csv.write("\r\n");
+        for (User user : (Iterable<User>) users::iterator) {
+            UserResponseDTO dto = toDTO(user);
+            csv.write(String.valueOf(dto.getId()));
+            writeCsvField(csv, dto.getUsername());
+            writeCsvField(csv, dto.getEmail());
+            writeCsvField(csv, dto.getFirstName());
+            writeCsvField(csv, dto.getLastName());
+            writeCsvField(csv, dto.getCreatedAt() == null ? null : dto.getCreatedAt().toString());
+            writeCsvField(csv, dto.getLastLogin() == null ? null : dto.getLastLogin().toString());
+            csv.write("\r\n");
+            rows++;
+        }
+        csv.flush();
+        return rows;
+    }
+    
+    private UserResponseDTO toDTO(User user) {
+        UserResponseDTO dto = userMapper.toDTO(user);
+        // Written and done with; keeps the persistence context empty however long the cursor
+        entityManager.detach(user);
+        return dto;
+    }
+    
+    private static String cursorAfter(Sort sort, User last) {
+        return sort == Sort.ID
+                ? KeysetCursors.encodeId(last.getId())
+                : KeysetCursors.encodeTimestamp(CREATED_AT_TAG, last.getCreatedAt(), last.getId());
+    }
+    
+    // RFC 4180: quote only values containing a separator, quote or line break
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        csv.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
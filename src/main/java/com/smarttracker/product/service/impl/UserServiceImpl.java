@@ -6,42 +6,63 @@ import com.smarttracker.product.exception.DuplicateResourceException;
 import com.smarttracker.product.mapper.UserMapper;
 import com.smarttracker.product.model.User;
 import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.security.AuthMetrics;
+import com.smarttracker.product.service.UserAvailabilityIndex;
 import com.smarttracker.product.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
     
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    // The key column as drivers print it: "Key (username)=(...)" on PostgreSQL, "USERS(USERNAME ...)" on H2
+    private static final Pattern USERNAME_COLUMN = Pattern.compile("\\(\\s*username\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EMAIL_COLUMN = Pattern.compile("\\(\\s*email\\b", Pattern.CASE_INSENSITIVE);
+    
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final AuthMetrics authMetrics;
     
     @Override
     @Transactional
     public UserResponse registerUser(RegisterRequest request) {
-        log.info("Attempting to register user: {}", request.getUsername());
-        
-        // Check if username already exists (case-insensitive)
-        if (userRepository.existsByUsernameIgnoreCase(request.getUsername())) {
-            throw new DuplicateResourceException(
-                "USERNAME_EXISTS", 
-                String.format("Username '%s' is already taken", request.getUsername())
-            );
-        }
-        
-        // Check if email already exists (case-insensitive)
-        if (userRepository.existsByEmailIgnoreCase(request.getEmail())) {
-            throw new DuplicateResourceException(
-                "EMAIL_EXISTS",
-                String.format("Email '%s' is already registered", request.getEmail())
-            );
+        long start = System.nanoTime();
+        try {
+            UserResponse response = register(request);
+            authMetrics.recordRegistration(AuthMetrics.Outcome.SUCCESS, System.nanoTime() - start);
+            return response;
+        } catch (DuplicateResourceException e) {
+            authMetrics.recordRegistration(AuthMetrics.Outcome.DUPLICATE, System.nanoTime() - start);
+            throw e;
+        } catch (IllegalArgumentException e) {
+            authMetrics.recordRegistration(AuthMetrics.Outcome.REJECTED, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            authMetrics.recordRegistration(AuthMetrics.Outcome.of(e), System.nanoTime() - start);
+            throw e;
         }
+    }
+    
+    private UserResponse register(RegisterRequest request) {
+        log.info("Attempting to register user: {}", request.getUsername());
         
         // Validate password strength
         validatePasswordStrength(request.getPassword());
@@ -59,24 +80,134 @@ public class UserServiceImpl implements UserService {
                 .credentialsNonExpired(true)
                 .build();
         
-        // Save user
-        User savedUser = userRepository.save(user);
+        // Single INSERT; the unique constraints detect duplicates, also under concurrent sign-ups
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateResourceException(e, request);
+        }
         log.info("User registered successfully with ID: {}", savedUser.getId());
         
+        availabilityIndex.add(savedUser);
+        
         return userMapper.toDTO(savedUser);
     }
     
     @Override
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsernameIgnoreCase(username);
+        // Definitely-available answers skip the database entirely
+        if (!availabilityIndex.mightContainUsername(username)) {
+            return false;
+        }
+        
+        boolean exists = userRepository.existsByUsernameIgnoreCase(username);
+        availabilityIndex.recordConfirmation(exists);
+        return exists;
     }
     
     @Override
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmailIgnoreCase(email);
+        if (!availabilityIndex.mightContainEmail(email)) {
+            return false;
+        }
+        
+        boolean exists = userRepository.existsByEmailIgnoreCase(email);
+        availabilityIndex.recordConfirmation(exists);
+        return exists;
+    }
+    
+    private RuntimeException toDuplicateResourceException(DataIntegrityViolationException e,
+                                                          RegisterRequest request) {
+        DuplicateResourceException duplicate = duplicateOf(e, request);
+        if (duplicate != null) {
+            return duplicate;
+        }
+        
+        log.error("Unexpected constraint violation while registering {}: {}",
+                request.getUsername(), e.getMostSpecificCause().getMessage());
+        return e;
+    }
+    
+    /**
+     * Maps a failed insert to the API error, or returns {@code null} if it was
+     * not a unique violation. The constraint name tells which field collided,
+     * from the exception or, for R2DBC, from the driver message. Databases
+     * created before the constraints were named keep generated names, so an
+     * unknown name falls back to the column in the driver message and then,
+     * for any other unique violation (SQLState 23505), to a generic duplicate.
+     */
+    static DuplicateResourceException duplicateOf(Throwable failure, RegisterRequest request) {
+        String sqlState = null;
+        for (Throwable t = failure; t != null && sqlState == null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                sqlState = sql.getSQLState();
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return duplicateOf(failure, sqlState, request);
+    }
+    
+    /**
+     * {@link #duplicateOf(Throwable, RegisterRequest)} for drivers that do not
+     * report through {@link SQLException}: the caller extracts the SQLState.
+     */
+    static DuplicateResourceException duplicateOf(Throwable failure, String sqlState, RegisterRequest request) {
+        String constraintName = null;
+        for (Throwable t = failure; t != null && constraintName == null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violation) {
+                constraintName = violation.getConstraintName();
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        
+        String message = NestedExceptionUtils.getMostSpecificCause(failure).getMessage();
+        DuplicateResourceException duplicate = constraintName != null ? duplicateOf(constraintName, request) : null;
+        if (duplicate == null && message != null) {
+            duplicate = duplicateOf(message, request);
+        }
+        if (duplicate != null || !UNIQUE_VIOLATION.equals(sqlState)) {
+            return duplicate;
+        }
+        
+        if (message != null && USERNAME_COLUMN.matcher(message).find()) {
+            return duplicateOf(User.USERNAME_CONSTRAINT, request);
+        }
+        if (message != null && EMAIL_COLUMN.matcher(message).find()) {
+            return duplicateOf(User.EMAIL_CONSTRAINT, request);
+        }
+        return new DuplicateResourceException("USER_EXISTS", "Username or email is already registered");
+    }
+    
+    /**
+     * Maps the violated unique constraint, or a driver message naming it, to the
+     * API error. Returns {@code null} for any other constraint.
+     */
+    static DuplicateResourceException duplicateOf(String constraintName, RegisterRequest request) {
+        String constraint = constraintName.toLowerCase(Locale.ROOT);
+        
+        if (constraint.contains(User.USERNAME_CONSTRAINT)) {
+            return new DuplicateResourceException(
+                "USERNAME_EXISTS",
+                String.format("Username '%s' is already taken", request.getUsername())
+            );
+        }
+        
+        if (constraint.contains(User.EMAIL_CONSTRAINT)) {
+            return new DuplicateResourceException(
+                "EMAIL_EXISTS",
+                String.format("Email '%s' is already registered", request.getEmail())
+            );
+        }
+        
+        return null;
     }
     
-    private void validatePasswordStrength(String password) {
+    static void validatePasswordStrength(String password) {
         // Additional password validation if needed
         if (password.length() < 8) {
             throw new IllegalArgumentException("Password must be at least 8 characters long");
@@ -88,7 +219,7 @@ public class UserServiceImpl implements UserService {
         }
     }
     
-    private boolean isWeakPassword(String password) {
+    private static boolean isWeakPassword(String password) {
         // Add common weak passwords check
         String[] weakPasswords = {
             "password", "12345678", "qwerty123", "admin123", "letmein"
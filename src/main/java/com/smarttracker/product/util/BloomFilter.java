@@ -0,0 +1,118 @@
+package com.smarttracker.product.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings. Bits are set with
+ * lock-free CAS, so concurrent {@link #put} and {@link #mightContain} calls
+ * need no external locking. Uses Kirsch-Mitzenmacher double hashing to
+ * derive the k probe positions from one 64-bit hash.
+ */
+public final class BloomFilter {
+    
+    // Probe positions are 32-bit, so at most 2^32 bits (512 MB) are addressable
+    private static final long MAX_BYTES = 1L << 29;
+    
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final AtomicLong insertions = new AtomicLong();
+    
+    private BloomFilter(long bitCount, int hashFunctions) {
+        int wordCount = (int) Math.max(1L, (bitCount + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashFunctions = hashFunctions;
+    }
+    
+    /**
+     * Creates a filter that uses at most {@code maxBytes} of bit storage, with
+     * the number of hash functions chosen for {@code expectedInsertions}.
+     */
+    public static BloomFilter withMemoryBudget(long maxBytes, long expectedInsertions) {
+        if (maxBytes < Long.BYTES) {
+            throw new IllegalArgumentException("Memory budget must be at least 8 bytes");
+        }
+        long bits = Math.min(maxBytes, MAX_BYTES) * Byte.SIZE;
+        long n = Math.max(1L, expectedInsertions);
+        int k = (int) Math.max(1L, Math.min(16L, Math.round((double) bits / n * Math.log(2))));
+        return new BloomFilter(bits, k);
+    }
+    
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+    
+    /**
+     * @return {@code false} if the value was definitely never added,
+     *         {@code true} if it might have been
+     */
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Theoretical false-positive probability for the number of values added so far.
+     */
+    public double expectedFalsePositiveRate() {
+        double fillRatio = -((double) hashFunctions * insertions.get()) / bitCount;
+        return Math.pow(1 - Math.exp(fillRatio), hashFunctions);
+    }
+    
+    public long insertions() {
+        return insertions.get();
+    }
+    
+    public long sizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+    
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+    
+    private long index(int combinedHash) {
+        return (combinedHash & 0xFFFFFFFFL) % bitCount;
+    }
+    
+    // 64-bit mix over the UTF-16 chars; finalizer from MurmurHash3
+    private static long hash64(String value) {
+        long h = 0x9E3779B97F4A7C15L ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0xBF58476D1CE4E5B9L;
+            h = Long.rotateLeft(h, 31);
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
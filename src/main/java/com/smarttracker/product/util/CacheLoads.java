@@ -0,0 +1,88 @@
+package com.smarttracker.product.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-flight loads for caches whose loader blocks on I/O.
+ *
+ * <p>{@code Cache.get(key, loader)} runs the loader inside
+ * {@code ConcurrentHashMap.compute}, i.e. while holding a monitor. On a
+ * virtual thread a database query made there pins the carrier thread for the
+ * whole round trip. Here only an empty future is installed under the lock; the
+ * first caller then runs the loader outside it and completes the future, while
+ * concurrent callers for the same key wait on that future without pinning.
+ */
+public final class CacheLoads {
+    
+    /**
+     * How a lookup obtained its value.
+     */
+    public enum Source {
+        /** The value was already cached. */
+        CACHED,
+        /** This caller ran the loader. */
+        LOADED,
+        /** Another caller's load was in flight and this one waited for it. */
+        AWAITED;
+        
+        /**
+         * Classifies a lookup from the future the cache returned.
+         *
+         * @param invokedLoader whether this caller's mapping function ran
+         */
+        public static Source of(CompletableFuture<?> future, boolean invokedLoader) {
+            if (invokedLoader) {
+                return LOADED;
+            }
+            return future.isDone() ? CACHED : AWAITED;
+        }
+    }
+    
+    private CacheLoads() {
+    }
+    
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        return getOrLoad(cache, key, loader, source -> { });
+    }
+    
+    /**
+     * Like {@link #getOrLoad(AsyncCache, Object, Function)}, also reporting
+     * where the value came from. {@code sourceListener} is called before the
+     * loader runs or the caller waits, so it is told even if the load fails.
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader,
+                                     Consumer<Source> sourceListener) {
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> pending);
+        sourceListener.accept(Source.of(future, future == pending));
+        
+        if (future == pending) {
+            try {
+                pending.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                // Failed futures are removed by the cache, so nothing is cached. Cancellation is
+                // used because the cache logs any other failure with a stack trace, and a
+                // missing user or product is an expected outcome.
+                CancellationException failure = new CancellationException(e.getMessage());
+                failure.initCause(e);
+                pending.completeExceptionally(failure);
+                throw e;
+            }
+        }
+        
+        try {
+            return future.join();
+        } catch (CancellationException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
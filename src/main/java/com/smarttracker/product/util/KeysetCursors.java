@@ -0,0 +1,80 @@
+package com.smarttracker.product.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset-paginated listings. A cursor is the sort key of
+ * the last row on a page, base64url-encoded: {@code "i:<id>"} for listings in
+ * id order, or {@code "<tag>:<timestamp>,<id>"} for listings ordered by a
+ * timestamp with the id as tie-breaker. The tag names the timestamp column,
+ * so a cursor from one listing is rejected by another.
+ *
+ * <p>Malformed or foreign cursors raise {@link IllegalArgumentException},
+ * which the API reports as 400.
+ */
+public final class KeysetCursors {
+    
+    private static final String ID_TAG = "i";
+    
+    private KeysetCursors() {
+    }
+    
+    /**
+     * Position after a row in a listing ordered by timestamp, then id.
+     */
+    public record TimestampPosition(LocalDateTime timestamp, Long id) {
+    }
+    
+    public static String encodeId(Long id) {
+        return encode(ID_TAG + ":" + id);
+    }
+    
+    public static String encodeTimestamp(String tag, LocalDateTime timestamp, Long id) {
+        return encode(tag + ":" + timestamp + "," + id);
+    }
+    
+    public static Long decodeId(String cursor) {
+        String key = decode(cursor, ID_TAG);
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+    
+    public static TimestampPosition decodeTimestamp(String cursor, String tag) {
+        String key = decode(cursor, tag);
+        int separator = key.lastIndexOf(',');
+        try {
+            return new TimestampPosition(LocalDateTime.parse(key.substring(0, Math.max(separator, 0))),
+                    Long.valueOf(key.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+    
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decode(String cursor, String tag) {
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        String prefix = tag + ":";
+        if (!key.startsWith(prefix)) {
+            throw invalidCursor();
+        }
+        return key.substring(prefix.length());
+    }
+    
+    private static IllegalArgumentException invalidCursor() {
+        return new IllegalArgumentException("Invalid cursor for this listing");
+    }
+}
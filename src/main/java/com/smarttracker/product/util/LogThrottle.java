@@ -0,0 +1,62 @@
+package com.smarttracker.product.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limit for one repeated log statement: at most {@code permits} messages
+ * per interval get through and the rest are counted. The next message that
+ * gets through reports how many were dropped, so a flood of bad tokens or
+ * failed logins costs a few lines per interval instead of one per request.
+ * Lock-free; under contention a window may let a few extra messages through.
+ *
+ * <pre>
+ * long suppressed = THROTTLE.tryAcquire();
+ * if (suppressed >= 0) {
+ *     log.warn("Invalid credentials for: {}{}", user, LogThrottle.suppressedNote(suppressed));
+ * }
+ * </pre>
+ */
+public final class LogThrottle {
+    
+    private final int permits;
+    private final long intervalNanos;
+    private final AtomicLong windowStart;
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+    
+    public LogThrottle(int permits, Duration interval) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("A log throttle needs at least one permit");
+        }
+        this.permits = permits;
+        this.intervalNanos = interval.toNanos();
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+    
+    /**
+     * @return {@code -1} if the message must be dropped, otherwise the number
+     *         of messages dropped since the last one that got through
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+        
+        if (used.get() >= permits || used.incrementAndGet() > permits) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+        return suppressed.getAndSet(0);
+    }
+    
+    /**
+     * Suffix for the message that got through; empty, with no allocation, when nothing was dropped.
+     */
+    public static String suppressedNote(long suppressed) {
+        return suppressed > 0 ? " (" + suppressed + " similar messages suppressed)" : "";
+    }
+}
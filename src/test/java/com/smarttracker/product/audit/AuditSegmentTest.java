@@ -0,0 +1,145 @@
+package com.smarttracker.product.audit;
+
+import com.smarttracker.product.dto.AuthAuditEvent;
+import com.smarttracker.product.security.AuthMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSegmentTest {
+    
+    private static final long T0 = 1_700_000_000_000L;
+    
+    @TempDir
+    Path directory;
+    
+    private final ByteBuffer scratch = ByteBuffer.allocate(AuditSegment.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    
+    @Test
+    void find_afterAppend_returnsUserEventsInRange() throws IOException {
+        AuditSegment segment = AuditSegment.create(directory.resolve("auth-audit-0000000001.seg"), 1, 16);
+        append(segment, T0, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        append(segment, T0 + 10, 2, "alice", AuthMetrics.Outcome.SUCCESS);
+        append(segment, T0 + 20, 0, "JDoe", AuthMetrics.Outcome.BAD_CREDENTIALS);
+        append(segment, T0 + 30, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        
+        List<AuthAuditEvent> events = find(segment, "jdoe", T0 + 5, T0 + 30);
+        
+        assertThat(events).extracting(AuthAuditEvent::getTimestamp)
+                .containsExactly(Instant.ofEpochMilli(T0 + 20), Instant.ofEpochMilli(T0 + 30));
+        assertThat(events.get(0).getUserId()).isNull();
+        assertThat(events.get(0).getOutcome()).isEqualTo(AuthMetrics.Outcome.BAD_CREDENTIALS);
+        assertThat(events.get(1).getUserId()).isEqualTo(1L);
+    }
+    
+    @Test
+    void append_whenFull_returnsFalse() throws IOException {
+        AuditSegment segment = AuditSegment.create(directory.resolve("auth-audit-0000000001.seg"), 1, 2);
+        
+        assertThat(append(segment, T0, 1, "jdoe", AuthMetrics.Outcome.SUCCESS)).isTrue();
+        assertThat(append(segment, T0 + 1, 1, "jdoe", AuthMetrics.Outcome.SUCCESS)).isTrue();
+        assertThat(append(segment, T0 + 2, 1, "jdoe", AuthMetrics.Outcome.SUCCESS)).isFalse();
+        assertThat(segment.isFull()).isTrue();
+    }
+    
+    @Test
+    void find_acrossManyBlocks_skipsNothingThatMatches() throws IOException {
+        int records = AuditSegment.RECORDS_PER_BLOCK * 3;
+        AuditSegment segment = AuditSegment.create(directory.resolve("auth-audit-0000000001.seg"), 1, records);
+        for (int i = 0; i < records; i++) {
+            append(segment, T0 + i, i, i % 50 == 0 ? "jdoe" : "user" + i, AuthMetrics.Outcome.SUCCESS);
+        }
+        
+        assertThat(find(segment, "jdoe", T0, T0 + records)).hasSize(4);
+    }
+    
+    @Test
+    void open_activeSegment_rebuildsIndexFromRecords() throws IOException {
+        Path file = directory.resolve("auth-audit-0000000001.seg");
+        AuditSegment segment = AuditSegment.create(file, 1, 16);
+        append(segment, T0, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        append(segment, T0 + 10, 2, "alice", AuthMetrics.Outcome.SUCCESS);
+        segment.force();
+        
+        AuditSegment reopened = AuditSegment.open(file, 1, true);
+        
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(find(reopened, "alice", T0, T0 + 10)).hasSize(1);
+        assertThat(append(reopened, T0 + 20, 1, "jdoe", AuthMetrics.Outcome.SUCCESS)).isTrue();
+        assertThat(find(reopened, "jdoe", T0, T0 + 20)).hasSize(2);
+    }
+    
+    @Test
+    void open_sealedSegment_loadsWrittenIndex() throws IOException {
+        Path file = directory.resolve("auth-audit-0000000001.seg");
+        AuditSegment segment = AuditSegment.create(file, 1, 2);
+        append(segment, T0, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        append(segment, T0 + 10, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        segment.seal();
+        
+        AuditSegment reopened = AuditSegment.open(file, 1, false);
+        
+        assertThat(directory.resolve("auth-audit-0000000001.idx")).exists();
+        assertThat(reopened.isFull()).isTrue();
+        assertThat(find(reopened, "jdoe", T0, T0 + 10)).hasSize(2);
+    }
+    
+    @Test
+    void open_withTornTailRecord_stopsBeforeIt() throws IOException {
+        Path file = directory.resolve("auth-audit-0000000001.seg");
+        AuditSegment segment = AuditSegment.create(file, 1, 16);
+        for (int i = 0; i < 3; i++) {
+            append(segment, T0 + i, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        }
+        segment.force();
+        // Corrupt the name of the third record, as a write cut short by a crash would
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 3L * AuditSegment.RECORD_BYTES + 40);
+        }
+        
+        AuditSegment reopened = AuditSegment.open(file, 1, true);
+        
+        assertThat(reopened.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void delete_removesSegmentAndIndex() throws IOException {
+        Path file = directory.resolve("auth-audit-0000000001.seg");
+        AuditSegment segment = AuditSegment.create(file, 1, 1);
+        append(segment, T0, 1, "jdoe", AuthMetrics.Outcome.SUCCESS);
+        segment.seal();
+        
+        segment.delete();
+        
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+    
+    private boolean append(AuditSegment segment, long timestamp, long userId, String username,
+                           AuthMetrics.Outcome outcome) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return segment.append(timestamp, userId, AuthAuditLog.hash(username), AuthAuditEvent.Type.LOGIN,
+                outcome, name, name.length, scratch);
+    }
+    
+    private static List<AuthAuditEvent> find(AuditSegment segment, String username, long from, long to)
+            throws IOException {
+        List<AuthAuditEvent> events = new ArrayList<>();
+        segment.find(AuthAuditLog.hash(username), username, from, to, events);
+        return events;
+    }
+}
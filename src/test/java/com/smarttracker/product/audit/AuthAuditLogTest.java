@@ -0,0 +1,126 @@
+package com.smarttracker.product.audit;
+
+import com.smarttracker.product.dto.AuthAuditEvent;
+import com.smarttracker.product.security.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthAuditLogTest {
+    
+    @TempDir
+    Path directory;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuthAuditLog auditLog;
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (auditLog != null) {
+            auditLog.stop();
+        }
+    }
+    
+    @Test
+    void find_afterRollOver_returnsNewestFirstAcrossSegments() throws Exception {
+        // Three records per segment
+        auditLog = newLog(4, 0);
+        auditLog.start();
+        for (int i = 0; i < 7; i++) {
+            auditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, i + 1L, "jdoe");
+            Thread.sleep(2);
+        }
+        auditLog.stop();
+        
+        List<AuthAuditEvent> events = auditLog.find("jdoe", Instant.EPOCH, Instant.now(), 10);
+        
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(events).extracting(AuthAuditEvent::getUserId).containsExactly(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+    }
+    
+    @Test
+    void find_withLimit_keepsNewestAndPagesBackWithTo() throws Exception {
+        auditLog = newLog(4, 0);
+        auditLog.start();
+        for (int i = 0; i < 7; i++) {
+            auditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, i + 1L, "jdoe");
+            Thread.sleep(2);
+        }
+        auditLog.stop();
+        
+        List<AuthAuditEvent> first = auditLog.find("jdoe", Instant.EPOCH, Instant.now(), 4);
+        List<AuthAuditEvent> second = auditLog.find("jdoe", Instant.EPOCH, first.get(3).getTimestamp(), 4);
+        
+        assertThat(first).extracting(AuthAuditEvent::getUserId).containsExactly(7L, 6L, 5L, 4L);
+        assertThat(second).extracting(AuthAuditEvent::getUserId).containsExactly(4L, 3L, 2L, 1L);
+    }
+    
+    @Test
+    void rollOver_pastMaxSegments_deletesOldest() throws Exception {
+        auditLog = newLog(4, 2);
+        auditLog.start();
+        for (int i = 0; i < 7; i++) {
+            auditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, i + 1L, "jdoe");
+        }
+        auditLog.stop();
+        
+        assertThat(segmentFiles()).containsExactly("auth-audit-0000000002.seg", "auth-audit-0000000003.seg");
+        assertThat(auditLog.find("jdoe", Instant.EPOCH, Instant.now(), 10)).hasSize(4);
+    }
+    
+    @Test
+    void start_withExistingSegments_resumesWhereItStopped() throws Exception {
+        auditLog = newLog(4, 0);
+        auditLog.start();
+        for (int i = 0; i < 4; i++) {
+            auditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, i + 1L, "jdoe");
+        }
+        auditLog.stop();
+        
+        auditLog = newLog(4, 0);
+        auditLog.start();
+        auditLog.record(AuthAuditEvent.Type.LOGOUT, AuthMetrics.Outcome.SUCCESS, 5L, "jdoe");
+        auditLog.stop();
+        
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(auditLog.find("jdoe", Instant.EPOCH, Instant.now(), 10)).hasSize(5);
+    }
+    
+    @Test
+    void record_whenDisabled_isIgnored() throws Exception {
+        auditLog = new AuthAuditLog(meterRegistry, false, directory.toString(), DataSize.ofKilobytes(4), 0,
+                16, Duration.ofMillis(10), Duration.ofMillis(10));
+        auditLog.start();
+        
+        auditLog.record(AuthAuditEvent.Type.LOGIN, AuthMetrics.Outcome.SUCCESS, 1L, "jdoe");
+        
+        assertThat(auditLog.find("jdoe", Instant.EPOCH, Instant.now(), 10)).isEmpty();
+        assertThat(segmentFiles()).isEmpty();
+    }
+    
+    private AuthAuditLog newLog(int segmentSlots, int maxSegments) {
+        return new AuthAuditLog(meterRegistry, true, directory.toString(),
+                DataSize.ofBytes((long) segmentSlots * AuditSegment.RECORD_BYTES), maxSegments,
+                16, Duration.ofMillis(10), Duration.ofMillis(10));
+    }
+    
+    private List<String> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".seg"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.smarttracker.product.repository;
+
+import com.smarttracker.product.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserRepositoryTest {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(User.builder()
+                .username("jdoe")
+                .email("jdoe@example.com")
+                .password("$2a$12$abcdefghijklmnopqrstuv")
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void findByUsernameOrEmail_withUsername_issuesSingleStatement() {
+        Optional<User> user = userRepository.findByUsernameOrEmail("jdoe");
+        
+        assertThat(user).map(User::getEmail).contains("jdoe@example.com");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void findByUsernameOrEmail_withEmail_issuesSingleStatement() {
+        Optional<User> user = userRepository.findByUsernameOrEmail("jdoe@example.com");
+        
+        assertThat(user).map(User::getUsername).contains("jdoe");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void findByUsernameOrEmail_withUnknownValue_issuesSingleStatement() {
+        Optional<User> user = userRepository.findByUsernameOrEmail("nobody");
+        
+        assertThat(user).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void updatePasswordIfUnchanged_withVerifiedHash_replacesOnlyThePassword() {
+        User user = userRepository.findByUsername("jdoe").orElseThrow();
+        
+        int updated = userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), "{bcrypt}new");
+        entityManager.clear();
+        
+        assertThat(updated).isEqualTo(1);
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(reloaded.getPassword()).isEqualTo("{bcrypt}new");
+        assertThat(reloaded.getTokenVersion()).isEqualTo(user.getTokenVersion());
+        assertThat(reloaded.isEnabled()).isEqualTo(user.isEnabled());
+    }
+    
+    @Test
+    void updatePasswordIfUnchanged_afterConcurrentChange_keepsTheNewerPassword() {
+        User user = userRepository.findByUsername("jdoe").orElseThrow();
+        String verifiedHash = user.getPassword();
+        user.setPassword("{bcrypt}changed");
+        userRepository.saveAndFlush(user);
+        entityManager.clear();
+        
+        int updated = userRepository.updatePasswordIfUnchanged(user.getId(), verifiedHash, "{bcrypt}rehashed");
+        entityManager.clear();
+        
+        assertThat(updated).isZero();
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo("{bcrypt}changed");
+    }
+    
+    @Test
+    void incrementTokenVersion_calledTwice_countsBothRevocations() {
+        User user = userRepository.findByUsername("jdoe").orElseThrow();
+        
+        userRepository.incrementTokenVersion(user.getId());
+        userRepository.incrementTokenVersion(user.getId());
+        entityManager.clear();
+        
+        assertThat(userRepository.findTokenVersionById(user.getId())).contains(user.getTokenVersion() + 2);
+    }
+    
+    @Test
+    void incrementTokenVersion_withPendingChange_flushesItFirst() {
+        User user = userRepository.findByUsername("jdoe").orElseThrow();
+        user.setEnabled(false);
+        
+        int updated = userRepository.incrementTokenVersion(user.getId());
+        entityManager.clear();
+        
+        assertThat(updated).isEqualTo(1);
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(reloaded.isEnabled()).isFalse();
+        assertThat(reloaded.getTokenVersion()).isEqualTo(user.getTokenVersion() + 1);
+    }
+}
\ No newline at end of file
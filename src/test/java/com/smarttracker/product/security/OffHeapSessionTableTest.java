@@ -0,0 +1,127 @@
+package com.smarttracker.product.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapSessionTableTest {
+    
+    private static final long NOW = 1_000_000L;
+    private static final long LATER = NOW + 60_000;
+    
+    @Test
+    void get_afterPut_returnsSession() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        
+        assertThat(table.put(7, 11, 42, 3, LATER, null, NOW)).isTrue();
+        
+        assertThat(table.get(7, 11, NOW)).isEqualTo(new OffHeapSessionTable.Session(42, 3));
+        assertThat(table.get(7, 12, NOW)).isNull();
+        assertThat(table.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void get_withCollidingHomeSlot_probesToMatchingKey() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        table.put(5, 1, 100, 0, LATER, null, NOW);
+        table.put(5, 2, 200, 0, LATER, null, NOW);
+        table.put(21, 3, 300, 0, LATER, null, NOW);
+        
+        assertThat(table.get(5, 1, NOW).userId()).isEqualTo(100);
+        assertThat(table.get(5, 2, NOW).userId()).isEqualTo(200);
+        assertThat(table.get(21, 3, NOW).userId()).isEqualTo(300);
+    }
+    
+    @Test
+    void get_afterExpiry_returnsNull() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        table.put(7, 11, 42, 0, NOW + 10, null, NOW);
+        
+        assertThat(table.get(7, 11, NOW + 10)).isNull();
+    }
+    
+    @Test
+    void revoke_returnsFamilyAndHidesSession() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        UUID familyId = UUID.randomUUID();
+        table.put(7, 11, 42, 0, LATER, familyId, NOW);
+        
+        assertThat(table.revoke(7, 11)).isEqualTo(familyId);
+        assertThat(table.get(7, 11, NOW)).isNull();
+        assertThat(table.revoke(7, 11)).isNull();
+        assertThat(table.size()).isZero();
+    }
+    
+    @Test
+    void revoke_withoutFamily_returnsNull() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        table.put(7, 11, 42, 0, LATER, null, NOW);
+        
+        assertThat(table.revoke(7, 11)).isNull();
+        assertThat(table.get(7, 11, NOW)).isNull();
+    }
+    
+    @Test
+    void get_pastRevokedSlot_keepsProbeChainIntact() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        table.put(5, 1, 100, 0, LATER, null, NOW);
+        table.put(5, 2, 200, 0, LATER, null, NOW);
+        
+        table.revoke(5, 1);
+        
+        assertThat(table.get(5, 2, NOW).userId()).isEqualTo(200);
+    }
+    
+    @Test
+    void put_whenProbePathFull_returnsFalseUntilSlotFreed() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 2);
+        table.put(5, 1, 100, 0, LATER, null, NOW);
+        table.put(5, 2, 200, 0, LATER, null, NOW);
+        
+        assertThat(table.put(5, 3, 300, 0, LATER, null, NOW)).isFalse();
+        
+        table.revoke(5, 1);
+        assertThat(table.put(5, 3, 300, 0, LATER, null, NOW)).isTrue();
+        assertThat(table.get(5, 3, NOW).userId()).isEqualTo(300);
+    }
+    
+    @Test
+    void put_overExpiredSlot_reusesIt() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 1);
+        table.put(5, 1, 100, 0, NOW + 10, null, NOW);
+        
+        assertThat(table.put(5, 2, 200, 0, LATER, null, NOW + 10)).isTrue();
+        
+        assertThat(table.get(5, 2, NOW + 10).userId()).isEqualTo(200);
+        assertThat(table.size()).isEqualTo(1);
+    }
+    
+    @Test
+    void purgeExpired_removesOnlyExpiredSessions() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16, 4);
+        table.put(1, 1, 100, 0, NOW + 10, null, NOW);
+        table.put(2, 2, 200, 0, LATER, null, NOW);
+        
+        assertThat(table.purgeExpired(NOW + 10)).isEqualTo(1);
+        
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.get(2, 2, NOW + 10)).isNotNull();
+    }
+    
+    @Test
+    void constructor_roundsCapacityUpToPowerOfTwo() {
+        OffHeapSessionTable table = new OffHeapSessionTable(100, 8);
+        
+        assertThat(table.capacity()).isEqualTo(128);
+        assertThat(table.offHeapBytes()).isEqualTo(128L * OffHeapSessionTable.SLOT_BYTES);
+    }
+    
+    @Test
+    void constructor_withNonPositiveCapacity_throwsIllegalArgument() {
+        assertThatThrownBy(() -> new OffHeapSessionTable(0, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.smarttracker.product.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = newRateLimiter(true);
+    }
+    
+    @Test
+    void match_withThrottledPost_returnsEndpoint() {
+        assertThat(rateLimiter.match("POST", "/api/v1/auth/login")).isNotNull();
+        assertThat(rateLimiter.match("POST", "/api/v1/auth/register/")).isNotNull();
+    }
+    
+    @Test
+    void match_withOtherMethodOrPath_returnsNull() {
+        assertThat(rateLimiter.match("GET", "/api/v1/auth/login")).isNull();
+        assertThat(rateLimiter.match("POST", "/api/v1/auth/refresh")).isNull();
+    }
+    
+    @Test
+    void match_whenDisabled_returnsNull() {
+        assertThat(newRateLimiter(false).match("POST", "/api/v1/auth/login")).isNull();
+    }
+    
+    @Test
+    void acquireForClient_beyondPerIpLimit_rejectsAndCounts() {
+        RateLimiter.Endpoint login = rateLimiter.match("POST", "/api/v1/auth/login");
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.acquireForClient(login, "10.0.0.1")).isZero();
+        }
+        
+        assertThat(rateLimiter.acquireForClient(login, "10.0.0.1")).isPositive();
+        assertThat(rateLimiter.acquireForClient(login, "10.0.0.2")).isZero();
+        assertThat(meterRegistry.get("security.rate.limit.rejected")
+                .tag("endpoint", "login").tag("limit", "ip").counter().count()).isEqualTo(1);
+    }
+    
+    @Test
+    void acquireForAccounts_sameAccountAnyCase_sharesBucket() {
+        RateLimiter.Endpoint login = rateLimiter.match("POST", "/api/v1/auth/login");
+        assertThat(rateLimiter.acquireForAccounts(login, body("{\"usernameOrEmail\":\"jdoe\"}"))).isZero();
+        assertThat(rateLimiter.acquireForAccounts(login, body("{\"usernameOrEmail\":\" JDoe \"}"))).isZero();
+        
+        assertThat(rateLimiter.acquireForAccounts(login, body("{\"usernameOrEmail\":\"jdoe\"}"))).isPositive();
+        assertThat(rateLimiter.acquireForAccounts(login, body("{\"usernameOrEmail\":\"other\"}"))).isZero();
+    }
+    
+    @Test
+    void acquireForAccounts_registration_limitsUsernameAndEmail() {
+        RateLimiter.Endpoint register = rateLimiter.match("POST", "/api/v1/auth/register");
+        assertThat(rateLimiter.acquireForAccounts(register,
+                body("{\"username\":\"jdoe\",\"email\":\"jdoe@example.com\"}"))).isZero();
+        
+        // Same email under a new username still hits the exhausted email bucket
+        assertThat(rateLimiter.acquireForAccounts(register,
+                body("{\"username\":\"jdoe2\",\"email\":\"jdoe@example.com\"}"))).isPositive();
+    }
+    
+    @Test
+    void acquireForAccounts_withMalformedBody_allows() {
+        RateLimiter.Endpoint login = rateLimiter.match("POST", "/api/v1/auth/login");
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.acquireForAccounts(login, body("not json"))).isZero();
+        }
+    }
+    
+    @Test
+    void retryAfterSeconds_roundsUpToWholeSeconds() {
+        assertThat(RateLimiter.retryAfterSeconds(1)).isEqualTo(1);
+        assertThat(RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(2))).isEqualTo(2);
+        assertThat(RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(2) + 1)).isEqualTo(3);
+    }
+    
+    @Test
+    void accountRef_hidesAccountButIsStable() {
+        assertThat(RateLimiter.accountRef("jdoe"))
+                .isEqualTo(RateLimiter.accountRef("jdoe"))
+                .isNotEqualTo(RateLimiter.accountRef("jdoe2"))
+                .doesNotContain("jdoe")
+                .hasSize(16);
+    }
+    
+    private RateLimiter newRateLimiter(boolean enabled) {
+        return new RateLimiter(new ObjectMapper(), meterRegistry, enabled, 1000,
+                "3/1h", "2/1h", "3/1h", "1/1h");
+    }
+    
+    private static byte[] body(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.smarttracker.product.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+    
+    @Test
+    void tryAcquire_withinCapacity_admitsWholeBurst() {
+        TokenBucket bucket = new TokenBucket();
+        TokenBucket.Limit limit = TokenBucket.Limit.parse("5/1h");
+        
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(limit)).isZero();
+        }
+    }
+    
+    @Test
+    void tryAcquire_beyondCapacity_returnsWaitUpToOneInterval() {
+        TokenBucket bucket = new TokenBucket();
+        TokenBucket.Limit limit = TokenBucket.Limit.parse("3/1h");
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(limit);
+        }
+        
+        long waitNanos = bucket.tryAcquire(limit);
+        
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(20).toNanos());
+    }
+    
+    @Test
+    void tryAcquire_rejected_doesNotConsumeToken() {
+        TokenBucket bucket = new TokenBucket();
+        TokenBucket.Limit limit = TokenBucket.Limit.parse("1/1h");
+        bucket.tryAcquire(limit);
+        
+        long first = bucket.tryAcquire(limit);
+        long second = bucket.tryAcquire(limit);
+        
+        // A rejection leaves the state alone, so the wait only shrinks with time
+        assertThat(second).isPositive().isLessThanOrEqualTo(first);
+    }
+    
+    @Test
+    void tryAcquire_afterEmissionInterval_admitsAgain() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket();
+        TokenBucket.Limit limit = TokenBucket.Limit.parse("2/100ms");
+        bucket.tryAcquire(limit);
+        bucket.tryAcquire(limit);
+        assertThat(bucket.tryAcquire(limit)).isPositive();
+        
+        Thread.sleep(60);
+        
+        assertThat(bucket.tryAcquire(limit)).isZero();
+    }
+    
+    @Test
+    void tryAcquire_concurrently_admitsExactlyCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket();
+        TokenBucket.Limit limit = TokenBucket.Limit.parse("100/1h");
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 50; j++) {
+                    if (bucket.tryAcquire(limit) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        
+        assertThat(admitted).hasValue(100);
+    }
+    
+    @Test
+    void parse_withCapacityAndPeriod_derivesIntervalAndBurst() {
+        TokenBucket.Limit limit = TokenBucket.Limit.parse(" 10 / 1m ");
+        
+        assertThat(limit.capacity()).isEqualTo(10);
+        assertThat(limit.period()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(limit.emissionIntervalNanos()).isEqualTo(Duration.ofSeconds(6).toNanos());
+        assertThat(limit.burstNanos()).isEqualTo(Duration.ofMinutes(1).toNanos());
+        assertThat(limit.enabled()).isTrue();
+    }
+    
+    @Test
+    void parse_withZeroCapacity_isDisabled() {
+        assertThat(TokenBucket.Limit.parse("0/1m").enabled()).isFalse();
+    }
+    
+    @Test
+    void parse_withoutPeriod_throwsIllegalArgument() {
+        assertThatThrownBy(() -> TokenBucket.Limit.parse("10"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<capacity>/<period>");
+    }
+}
@@ -0,0 +1,122 @@
+package com.smarttracker.product.service;
+
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.UserIdentifiers;
+import com.smarttracker.product.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserAvailabilityIndexTest {
+    
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserAvailabilityIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = newIndex(true);
+    }
+    
+    @Test
+    void mightContainUsername_beforeWarmUp_fallsThroughToDatabase() {
+        assertThat(index.mightContainUsername("anyone")).isTrue();
+        assertThat(lookups("not_ready")).isEqualTo(1);
+    }
+    
+    @Test
+    void mightContainUsername_afterWarmUp_matchesStoredUsersIgnoringCase() {
+        when(userRepository.streamAllIdentifiers()).thenReturn(Stream.of(identifiers("JDoe", "jdoe@example.com")));
+        
+        index.warmUp();
+        
+        assertThat(index.mightContainUsername("jdoe")).isTrue();
+        assertThat(index.mightContainEmail("JDOE@example.com")).isTrue();
+        assertThat(index.mightContainUsername("someone-else")).isFalse();
+        assertThat(lookups("definitely_available")).isEqualTo(1);
+    }
+    
+    @Test
+    void mightContainEmail_withUsernameValue_isNotConfused() {
+        when(userRepository.streamAllIdentifiers()).thenReturn(Stream.of(identifiers("jdoe", "mail@example.com")));
+        
+        index.warmUp();
+        
+        assertThat(index.mightContainEmail("jdoe")).isFalse();
+        assertThat(index.mightContainUsername("mail@example.com")).isFalse();
+    }
+    
+    @Test
+    void add_afterWarmUp_isVisibleImmediately() {
+        when(userRepository.streamAllIdentifiers()).thenReturn(Stream.empty());
+        index.warmUp();
+        
+        index.add(User.builder().username("newbie").email("newbie@example.com").build());
+        
+        assertThat(index.mightContainUsername("newbie")).isTrue();
+        assertThat(index.mightContainEmail("newbie@example.com")).isTrue();
+    }
+    
+    @Test
+    void rebuild_whenStreamFails_keepsPreviousFilter() {
+        when(userRepository.streamAllIdentifiers())
+                .thenReturn(Stream.of(identifiers("jdoe", "jdoe@example.com")))
+                .thenThrow(new IllegalStateException("connection lost"));
+        index.warmUp();
+        
+        index.rebuild();
+        
+        assertThat(index.mightContainUsername("jdoe")).isTrue();
+        assertThat(index.mightContainUsername("someone-else")).isFalse();
+    }
+    
+    @Test
+    void mightContainUsername_whenDisabled_alwaysFallsThrough() {
+        UserAvailabilityIndex disabled = newIndex(false);
+        
+        disabled.warmUp();
+        
+        assertThat(disabled.mightContainUsername("anyone")).isTrue();
+    }
+    
+    @Test
+    void recordConfirmation_whenAbsent_countsFalsePositive() {
+        index.recordConfirmation(false);
+        index.recordConfirmation(true);
+        
+        assertThat(meterRegistry.get("users.availability.index.false.positives").counter().count()).isEqualTo(1);
+    }
+    
+    private UserAvailabilityIndex newIndex(boolean enabled) {
+        return new UserAvailabilityIndex(userRepository, mock(PlatformTransactionManager.class), meterRegistry,
+                enabled, DataSize.ofKilobytes(64), 10_000);
+    }
+    
+    private double lookups(String result) {
+        return meterRegistry.get("users.availability.index.lookups").tag("result", result).counter().count();
+    }
+    
+    private static UserIdentifiers identifiers(String username, String email) {
+        return new UserIdentifiers() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+            
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
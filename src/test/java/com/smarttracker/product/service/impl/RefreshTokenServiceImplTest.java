@@ -0,0 +1,162 @@
+package com.smarttracker.product.service.impl;
+
+import com.smarttracker.product.exception.AuthenticationFailedException;
+import com.smarttracker.product.model.RefreshTokenFamily;
+import com.smarttracker.product.repository.RefreshTokenFamilyRepository;
+import com.smarttracker.product.security.JwtUtil;
+import com.smarttracker.product.security.TokenVersionCache;
+import com.smarttracker.product.security.UserPrincipal;
+import com.smarttracker.product.service.RefreshTokenService.IssuedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Each repository call commits on its own, as in production, so the CAS runs against the table
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceImplTest {
+    
+    private static final String FAMILY_CLAIM = "fid";
+    
+    @Autowired
+    private RefreshTokenFamilyRepository familyRepository;
+    
+    private JwtUtil jwtUtil;
+    private TokenVersionCache tokenVersionCache;
+    private RefreshTokenServiceImpl refreshTokenService;
+    
+    private final UserPrincipal user = UserPrincipal.builder().id(1L).username("jdoe").build();
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.getRefreshExpirationTime()).thenReturn(Duration.ofDays(7).toMillis());
+        when(jwtUtil.isRefreshToken(any())).thenReturn(true);
+        when(jwtUtil.extractFamilyId(any())).thenAnswer(invocation ->
+                invocation.<Claims>getArgument(0).get(FAMILY_CLAIM, String.class));
+        // The "token" is familyId:tokenId, so tests can present it again as claims
+        when(jwtUtil.generateRefreshToken(any(), any(), any())).thenAnswer(invocation ->
+                invocation.getArgument(1) + ":" + invocation.getArgument(2));
+        tokenVersionCache = mock(TokenVersionCache.class);
+        
+        refreshTokenService = newService();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        familyRepository.deleteAll();
+    }
+    
+    @Test
+    void rotate_withCurrentToken_issuesNextTokenOfSameFamily() {
+        IssuedToken issued = refreshTokenService.issue(user);
+        
+        IssuedToken rotated = refreshTokenService.rotate(claims(issued), user);
+        
+        assertThat(rotated.familyId()).isEqualTo(issued.familyId());
+        assertThat(rotated.refreshToken()).isNotEqualTo(issued.refreshToken());
+        assertThat(familyRepository.findById(issued.familyId()))
+                .map(RefreshTokenFamily::getCurrentTokenId)
+                .contains(tokenId(rotated));
+    }
+    
+    @Test
+    void rotate_withRotatedToken_revokesFamilyAndAllUserTokens() {
+        IssuedToken issued = refreshTokenService.issue(user);
+        IssuedToken rotated = refreshTokenService.rotate(claims(issued), user);
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(claims(issued), user))
+                .isInstanceOf(AuthenticationFailedException.class)
+                .extracting("errorCode").isEqualTo("REFRESH_TOKEN_REVOKED");
+        
+        verify(tokenVersionCache).revokeAll(1L);
+        assertThat(familyRepository.findById(issued.familyId())).map(RefreshTokenFamily::isRevoked).contains(true);
+        // The legitimate holder's token is revoked with the family
+        assertThatThrownBy(() -> refreshTokenService.rotate(claims(rotated), user))
+                .isInstanceOf(AuthenticationFailedException.class)
+                .extracting("errorCode").isEqualTo("REFRESH_TOKEN_REVOKED");
+    }
+    
+    @Test
+    void rotate_withStaleIndex_rotatesFromTableWithoutRevoking() {
+        RefreshTokenServiceImpl otherNode = newService();
+        IssuedToken issued = refreshTokenService.issue(user);
+        // Rotated on the other node; this node's index still holds the first token
+        IssuedToken rotatedElsewhere = otherNode.rotate(claims(issued), user);
+        
+        IssuedToken rotated = refreshTokenService.rotate(claims(rotatedElsewhere), user);
+        
+        assertThat(familyRepository.findById(issued.familyId()))
+                .map(RefreshTokenFamily::getCurrentTokenId)
+                .contains(tokenId(rotated));
+        verify(tokenVersionCache, never()).revokeAll(anyLong());
+    }
+    
+    @Test
+    void rotate_forAnotherUser_rejectsWithoutRevokingTheirTokens() {
+        IssuedToken issued = refreshTokenService.issue(user);
+        UserPrincipal other = UserPrincipal.builder().id(2L).username("alice").build();
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(claims(issued), other))
+                .isInstanceOf(AuthenticationFailedException.class)
+                .extracting("errorCode").isEqualTo("REFRESH_TOKEN_REVOKED");
+        
+        verify(tokenVersionCache, never()).revokeAll(anyLong());
+    }
+    
+    @Test
+    void rotate_afterRevokeFamily_rejects() {
+        IssuedToken issued = refreshTokenService.issue(user);
+        
+        refreshTokenService.revokeFamily(issued.familyId());
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(claims(issued), user))
+                .isInstanceOf(AuthenticationFailedException.class)
+                .extracting("errorCode").isEqualTo("REFRESH_TOKEN_REVOKED");
+    }
+    
+    @Test
+    void rotate_withAccessToken_rejectsAsInvalid() {
+        IssuedToken issued = refreshTokenService.issue(user);
+        Claims claims = claims(issued);
+        when(jwtUtil.isRefreshToken(claims)).thenReturn(false);
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(claims, user))
+                .isInstanceOf(AuthenticationFailedException.class)
+                .extracting("errorCode").isEqualTo("INVALID_REFRESH_TOKEN");
+    }
+    
+    private RefreshTokenServiceImpl newService() {
+        return new RefreshTokenServiceImpl(familyRepository, jwtUtil, tokenVersionCache,
+                new SimpleMeterRegistry(), 1000);
+    }
+    
+    private static Claims claims(IssuedToken token) {
+        return Jwts.claims()
+                .id(tokenId(token))
+                .add(FAMILY_CLAIM, token.familyId())
+                .build();
+    }
+    
+    private static String tokenId(IssuedToken token) {
+        return token.refreshToken().substring(token.refreshToken().indexOf(':') + 1);
+    }
+}
@@ -0,0 +1,203 @@
+package com.smarttracker.product.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smarttracker.product.dto.UserImportEvent;
+import com.smarttracker.product.model.User;
+import com.smarttracker.product.repository.UserIdentifiers;
+import com.smarttracker.product.repository.UserRepository;
+import com.smarttracker.product.security.BoundedPasswordEncoder;
+import com.smarttracker.product.service.UserAvailabilityIndex;
+import com.smarttracker.product.service.UserImportService.Format;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceImplTest {
+    
+    private static final String PASSWORD = "S3cure-Passw0rd";
+    
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private UserAvailabilityIndex availabilityIndex;
+    private UserImportServiceImpl importService;
+    private final List<UserImportEvent> events = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        availabilityIndex = mock(UserAvailabilityIndex.class);
+        BoundedPasswordEncoder passwordEncoder = mock(BoundedPasswordEncoder.class);
+        when(passwordEncoder.encodeOnCallerThread(anyString())).thenReturn("{hashed}");
+        
+        importService = new UserImportServiceImpl(userRepository, entityManager,
+                mock(PlatformTransactionManager.class), passwordEncoder, availabilityIndex,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                new SimpleMeterRegistry(), 2, 1);
+    }
+    
+    @Test
+    void parseCsvLine_withPlainFields_splitsOnCommas() {
+        assertThat(UserImportServiceImpl.parseCsvLine("jdoe,jdoe@example.com,,Doe"))
+                .containsExactly("jdoe", "jdoe@example.com", "", "Doe");
+    }
+    
+    @Test
+    void parseCsvLine_withQuotedFields_keepsCommasAndDoubledQuotes() {
+        assertThat(UserImportServiceImpl.parseCsvLine("\"Doe, John\",\"say \"\"hi\"\"\",x"))
+                .containsExactly("Doe, John", "say \"hi\"", "x");
+    }
+    
+    @Test
+    void parseCsvLine_withTrailingComma_endsWithEmptyField() {
+        assertThat(UserImportServiceImpl.parseCsvLine("a,b,")).containsExactly("a", "b", "");
+    }
+    
+    @Test
+    void parseCsvLine_withUnterminatedQuote_throwsIllegalArgument() {
+        assertThatThrownBy(() -> UserImportServiceImpl.parseCsvLine("\"jdoe,jdoe@example.com"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+    }
+    
+    @Test
+    void importUsers_csvWithReorderedColumns_importsRows() throws IOException {
+        UserImportEvent summary = importCsv(
+                "\uFEFFEmail,Password,User_Name,First_Name",
+                "jdoe@example.com," + PASSWORD + ",JDoe,\"Doe, John\"");
+        
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(rejections()).isEmpty();
+    }
+    
+    @Test
+    void importUsers_withRepeatInFile_skipsLaterRowAcrossBatches() throws IOException {
+        // Batch size 2: the third row is checked against the previous batch
+        UserImportEvent summary = importCsv(
+                "username,email,password",
+                "jdoe,jdoe@example.com," + PASSWORD,
+                "alice,alice@example.com," + PASSWORD,
+                "other,JDOE@example.com," + PASSWORD,
+                "jdoe,new@example.com," + PASSWORD);
+        
+        assertThat(summary.getImported()).isEqualTo(2);
+        assertThat(summary.getSkipped()).isEqualTo(2);
+        assertThat(rejections()).extracting(UserImportEvent::getLine, UserImportEvent::getErrorCode)
+                .containsExactly(tuple(4L, "DUPLICATE_IN_FILE"), tuple(5L, "DUPLICATE_IN_FILE"));
+    }
+    
+    @Test
+    void importUsers_withExistingUser_skipsWithoutInserting() throws IOException {
+        when(availabilityIndex.mightContainUsername("jdoe")).thenReturn(true);
+        when(userRepository.findIdentifiersIn(any(), any()))
+                .thenReturn(List.of(identifiers("jdoe", "jdoe@example.com")));
+        
+        UserImportEvent summary = importCsv(
+                "username,email,password",
+                "jdoe,jdoe@example.com," + PASSWORD,
+                "alice,alice@example.com," + PASSWORD);
+        
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(rejections()).extracting(UserImportEvent::getLine, UserImportEvent::getErrorCode)
+                .containsExactly(tuple(2L, "USERNAME_EXISTS"));
+    }
+    
+    @Test
+    void importUsers_whenBatchInsertHitsConstraint_retriesRowByRow() throws IOException {
+        // A concurrent sign-up took "taken" after the existence check
+        doAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if (user.getUsername().equals("taken")) {
+                throw new DataIntegrityViolationException("duplicate", new ConstraintViolationException(
+                        "duplicate key", new SQLException("duplicate key", "23505"), User.USERNAME_CONSTRAINT));
+            }
+            return null;
+        }).when(entityManager).persist(any(User.class));
+        
+        UserImportEvent summary = importCsv(
+                "username,email,password",
+                "taken,taken@example.com," + PASSWORD,
+                "alice,alice@example.com," + PASSWORD);
+        
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getSkipped()).isEqualTo(1);
+        assertThat(rejections()).extracting(UserImportEvent::getUsername, UserImportEvent::getErrorCode)
+                .containsExactly(tuple("taken", "USERNAME_EXISTS"));
+    }
+    
+    @Test
+    void importUsers_ndjsonWithBadLines_rejectsEachLine() throws IOException {
+        UserImportEvent summary = importNdjson(
+                "{\"username\":\"jdoe\",\"email\":\"jdoe@example.com\",\"password\":\"" + PASSWORD + "\"}",
+                "null",
+                "[1,2]",
+                "{\"username\":\"x\",\"email\":\"not-an-email\",\"password\":\"" + PASSWORD + "\"}");
+        
+        assertThat(summary.getProcessed()).isEqualTo(4);
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(3);
+        assertThat(rejections()).extracting(UserImportEvent::getLine, UserImportEvent::getErrorCode)
+                .containsExactly(tuple(2L, "MALFORMED_ROW"), tuple(3L, "MALFORMED_ROW"),
+                        tuple(4L, "VALIDATION_ERROR"));
+    }
+    
+    @Test
+    void importUsers_csvWithoutRequiredColumn_throwsIllegalArgument() {
+        assertThatThrownBy(() -> importCsv("username,email", "jdoe,jdoe@example.com"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'password'");
+    }
+    
+    private UserImportEvent importCsv(String... lines) throws IOException {
+        return importService.importUsers(input(lines), Format.CSV, events::add);
+    }
+    
+    private UserImportEvent importNdjson(String... lines) throws IOException {
+        return importService.importUsers(input(lines), Format.NDJSON, events::add);
+    }
+    
+    private List<UserImportEvent> rejections() {
+        return events.stream().filter(event -> UserImportEvent.REJECTED.equals(event.getType())).toList();
+    }
+    
+    private static ByteArrayInputStream input(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static UserIdentifiers identifiers(String username, String email) {
+        return new UserIdentifiers() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+            
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
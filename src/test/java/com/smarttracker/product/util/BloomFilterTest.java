@@ -0,0 +1,62 @@
+package com.smarttracker.product.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+    
+    @Test
+    void mightContain_afterPut_isAlwaysTrue() {
+        BloomFilter filter = BloomFilter.withMemoryBudget(64 * 1024, 10_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+    
+    @Test
+    void mightContain_atExpectedFill_staysNearTheoreticalRate() {
+        BloomFilter filter = BloomFilter.withMemoryBudget(64 * 1024, 50_000);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("user" + i);
+        }
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        
+        assertThat(falsePositives / 100_000.0).isLessThan(filter.expectedFalsePositiveRate() * 2);
+    }
+    
+    @Test
+    void mightContain_onEmptyFilter_isFalse() {
+        BloomFilter filter = BloomFilter.withMemoryBudget(1024, 100);
+        
+        assertThat(filter.mightContain("jdoe")).isFalse();
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+    }
+    
+    @Test
+    void withMemoryBudget_sizesBitsAndHashFunctions() {
+        BloomFilter filter = BloomFilter.withMemoryBudget(1024, 1024);
+        
+        // 8 bits per entry: k = round(8 * ln 2) = 6
+        assertThat(filter.sizeInBytes()).isEqualTo(1024);
+        assertThat(filter.hashFunctions()).isEqualTo(6);
+    }
+    
+    @Test
+    void withMemoryBudget_belowOneWord_throwsIllegalArgument() {
+        assertThatThrownBy(() -> BloomFilter.withMemoryBudget(4, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.smarttracker.product.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorsTest {
+    
+    @Test
+    void decodeId_ofEncodedId_returnsId() {
+        assertThat(KeysetCursors.decodeId(KeysetCursors.encodeId(42L))).isEqualTo(42L);
+    }
+    
+    @Test
+    void decodeTimestamp_ofEncodedPosition_returnsPosition() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        
+        String cursor = KeysetCursors.encodeTimestamp("u", timestamp, 7L);
+        
+        assertThat(KeysetCursors.decodeTimestamp(cursor, "u"))
+                .isEqualTo(new KeysetCursors.TimestampPosition(timestamp, 7L));
+    }
+    
+    @Test
+    void encodeId_isUrlSafeWithoutPadding() {
+        assertThat(KeysetCursors.encodeId(Long.MAX_VALUE)).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void decodeTimestamp_withCursorOfOtherListing_throwsIllegalArgument() {
+        String cursor = KeysetCursors.encodeTimestamp("u", LocalDateTime.of(2024, 5, 1, 12, 0), 7L);
+        
+        assertInvalid(() -> KeysetCursors.decodeTimestamp(cursor, "c"));
+        assertInvalid(() -> KeysetCursors.decodeId(cursor));
+        assertInvalid(() -> KeysetCursors.decodeTimestamp(KeysetCursors.encodeId(7L), "u"));
+    }
+    
+    @Test
+    void decodeId_withGarbage_throwsIllegalArgument() {
+        assertInvalid(() -> KeysetCursors.decodeId("not base64!"));
+        assertInvalid(() -> KeysetCursors.decodeId(encode("i:abc")));
+    }
+    
+    @Test
+    void decodeTimestamp_withMalformedKey_throwsIllegalArgument() {
+        assertInvalid(() -> KeysetCursors.decodeTimestamp(encode("u:2024-05-01T12:00"), "u"));
+        assertInvalid(() -> KeysetCursors.decodeTimestamp(encode("u:yesterday,7"), "u"));
+        assertInvalid(() -> KeysetCursors.decodeTimestamp(encode("u:2024-05-01T12:00,x"), "u"));
+    }
+    
+    private static void assertInvalid(Runnable decode) {
+        assertThatThrownBy(decode::run)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor for this listing");
+    }
+    
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,56 @@
+package com.smarttracker.product.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogThrottleTest {
+    
+    @Test
+    void tryAcquire_withinPermits_letsMessagesThrough() {
+        LogThrottle throttle = new LogThrottle(3, Duration.ofHours(1));
+        
+        assertThat(throttle.tryAcquire()).isZero();
+        assertThat(throttle.tryAcquire()).isZero();
+        assertThat(throttle.tryAcquire()).isZero();
+    }
+    
+    @Test
+    void tryAcquire_beyondPermits_dropsMessages() {
+        LogThrottle throttle = new LogThrottle(2, Duration.ofHours(1));
+        throttle.tryAcquire();
+        throttle.tryAcquire();
+        
+        assertThat(throttle.tryAcquire()).isEqualTo(-1);
+        assertThat(throttle.tryAcquire()).isEqualTo(-1);
+    }
+    
+    @Test
+    void tryAcquire_inNextWindow_reportsSuppressedCountOnce() throws InterruptedException {
+        LogThrottle throttle = new LogThrottle(1, Duration.ofMillis(50));
+        throttle.tryAcquire();
+        throttle.tryAcquire();
+        throttle.tryAcquire();
+        
+        Thread.sleep(60);
+        
+        assertThat(throttle.tryAcquire()).isEqualTo(2);
+        Thread.sleep(60);
+        assertThat(throttle.tryAcquire()).isZero();
+    }
+    
+    @Test
+    void constructor_withoutPermits_throwsIllegalArgument() {
+        assertThatThrownBy(() -> new LogThrottle(0, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void suppressedNote_mentionsOnlyDroppedMessages() {
+        assertThat(LogThrottle.suppressedNote(0)).isEmpty();
+        assertThat(LogThrottle.suppressedNote(5)).isEqualTo(" (5 similar messages suppressed)");
+    }
+}